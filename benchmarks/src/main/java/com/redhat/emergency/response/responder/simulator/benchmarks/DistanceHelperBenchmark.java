@@ -0,0 +1,70 @@
+package com.redhat.emergency.response.responder.simulator.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import com.redhat.emergency.response.responder.simulator.DistanceHelper;
+import com.redhat.emergency.response.responder.simulator.model.Coordinates;
+import com.redhat.emergency.response.responder.simulator.model.Route;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class DistanceHelperBenchmark {
+
+    private static final int POLYLINE = 1000;
+
+    @Param({"HAVERSINE", "FAST"})
+    DistanceHelper.Mode mode;
+
+    private double lat1 = 34.1827;
+    private double lon1 = -77.9106;
+    private double lat2 = 34.1901;
+    private double lon2 = -77.9188;
+
+    private int[] latE6;
+    private int[] lonE6;
+    private double[] cumulative;
+
+    @Setup
+    public void setup() {
+        Route route = Routes.route(POLYLINE);
+        latE6 = new int[POLYLINE];
+        lonE6 = new int[POLYLINE];
+        for (int i = 0; i < POLYLINE; i++) {
+            latE6[i] = route.latE6(i);
+            lonE6[i] = route.lonE6(i);
+        }
+        cumulative = new double[POLYLINE];
+    }
+
+    @Benchmark
+    public double distance() {
+        return mode.calculateDistance(lat1, lon1, lat2, lon2);
+    }
+
+    @Benchmark
+    public Coordinates intermediateCoordinate() {
+        return mode.calculateIntermediateCoordinate(lat1, lon1, lat2, lon2, 500.0);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public double[] cumulativeDistances() {
+        mode.calculateCumulativeDistances(latE6, lonE6, cumulative, POLYLINE);
+        return cumulative;
+    }
+}
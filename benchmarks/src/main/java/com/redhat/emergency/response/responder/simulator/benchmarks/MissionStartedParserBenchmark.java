@@ -0,0 +1,69 @@
+package com.redhat.emergency.response.responder.simulator.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.redhat.emergency.response.responder.simulator.incoming.MissionStarted;
+import com.redhat.emergency.response.responder.simulator.incoming.MissionStartedParser;
+import com.redhat.emergency.response.responder.simulator.model.Coordinates;
+import com.redhat.emergency.response.responder.simulator.model.MissionStep;
+import com.redhat.emergency.response.responder.simulator.model.Route;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Decoding a MissionStartedEvent payload into a route: streaming parser against the JSON tree it replaced.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class MissionStartedParserBenchmark {
+
+    @Param({"100", "1000"})
+    private int steps;
+
+    private String payload;
+
+    @Setup
+    public void setup() {
+        Route route = Routes.route(steps);
+        JsonArray json = new JsonArray();
+        for (int i = 0; i < route.size(); i++) {
+            json.add(new JsonObject().put("lat", route.lat(i)).put("lon", route.lon(i))
+                    .put("wayPoint", route.isWayPoint(i)).put("destination", route.isDestination(i)));
+        }
+        payload = new JsonObject().put("id", "missionId").put("incidentId", "incidentId").put("responderId", "responderId")
+                .put("responderStartLat", Routes.ORIGIN_LAT).put("responderStartLong", Routes.ORIGIN_LON)
+                .put("status", "CREATED").put("steps", json).encode();
+    }
+
+    @Benchmark
+    public MissionStarted streaming() throws IOException {
+        return MissionStartedParser.parse(payload);
+    }
+
+    @Benchmark
+    public Route tree() {
+        JsonObject json = new JsonObject(payload);
+        List<MissionStep> missionSteps = json.getJsonArray("steps").stream().map(o -> (JsonObject) o)
+                .map(j -> new MissionStep(Coordinates.of(j.getDouble("lat"), j.getDouble("lon")),
+                        j.getBoolean("wayPoint"), j.getBoolean("destination"))).collect(Collectors.toList());
+        return Route.of(missionSteps);
+    }
+}
@@ -0,0 +1,68 @@
+package com.redhat.emergency.response.responder.simulator.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import com.redhat.emergency.response.responder.simulator.streams.TopologyProducer;
+import io.vertx.core.json.JsonObject;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.processor.MockProcessorContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of the responder events consumed by the Kafka Streams topology.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ResponderEventTransformerBenchmark {
+
+    @Param({"1", "100"})
+    int responders;
+
+    private TopologyProducer.ResponderEventTransformer transformer;
+
+    private String value;
+
+    @Setup
+    public void setup() {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add("ce_specversion", "1.0".getBytes(StandardCharsets.UTF_8));
+        headers.add("ce_datacontenttype", "application/json".getBytes(StandardCharsets.UTF_8));
+        headers.add("ce_type", "RespondersCreatedEvent".getBytes(StandardCharsets.UTF_8));
+        MockProcessorContext context = new MockProcessorContext();
+        context.setHeaders(headers);
+        transformer = new TopologyProducer.ResponderEventTransformer();
+        transformer.init(context);
+
+        StringBuilder sb = new StringBuilder("{\"created\":").append(responders).append(",\"responders\":[");
+        for (int i = 0; i < responders; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"id\":\"").append(i).append("\",\"name\":\"John Doe ").append(i)
+                    .append("\",\"phoneNumber\":\"(111) 456-7890\",\"latitude\":34.1827,\"longitude\":-77.9106,\"boatCapacity\":3,")
+                    .append("\"medicalKit\":true,\"available\":true,\"person\":false,\"enrolled\":true}");
+        }
+        value = sb.append("]}").toString();
+    }
+
+    @Benchmark
+    public KeyValue<String, JsonObject> transform() {
+        return transformer.transform("key", value);
+    }
+}
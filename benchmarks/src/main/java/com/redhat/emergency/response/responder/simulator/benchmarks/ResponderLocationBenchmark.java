@@ -0,0 +1,57 @@
+package com.redhat.emergency.response.responder.simulator.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import com.redhat.emergency.response.responder.simulator.model.ResponderLocation;
+import com.redhat.emergency.response.responder.simulator.model.Route;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One simulation tick of a mission: {@code calculateNextLocation} followed by {@code moveToNextLocation}. The mission
+ * restarts from the origin once it reaches its destination; the route itself is immutable and shared.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ResponderLocationBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    int routeLength;
+
+    @Param({"1500.0"})
+    double distanceUnit;
+
+    private Route route;
+
+    private ResponderLocation responderLocation;
+
+    @Setup
+    public void setup() {
+        route = Routes.route(routeLength);
+        responderLocation = Routes.responderLocation(route, distanceUnit);
+    }
+
+    @Benchmark
+    public ResponderLocation tick() {
+        ResponderLocation.Status status = responderLocation.getStatus();
+        if (status == ResponderLocation.Status.DROPPED) {
+            responderLocation = Routes.responderLocation(route, distanceUnit);
+        }
+        responderLocation.calculateNextLocation();
+        responderLocation.moveToNextLocation();
+        return responderLocation;
+    }
+}
@@ -0,0 +1,60 @@
+package com.redhat.emergency.response.responder.simulator.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import com.redhat.emergency.response.responder.simulator.model.ResponderLocation;
+import com.redhat.emergency.response.responder.simulator.repository.BinaryResponderLocationCodec;
+import com.redhat.emergency.response.responder.simulator.repository.JsonResponderLocationCodec;
+import com.redhat.emergency.response.responder.simulator.repository.ResponderLocationCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encoding and decoding of the repository entries, in the JSON and the binary format.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ResponderLocationCodecBenchmark {
+
+    @Param({"json", "binary"})
+    String encoding;
+
+    @Param({"10", "100", "1000"})
+    int routeLength;
+
+    private ResponderLocationCodec codec;
+
+    private ResponderLocation responderLocation;
+
+    private Object encoded;
+
+    @Setup
+    public void setup() {
+        codec = "binary".equals(encoding) ? BinaryResponderLocationCodec.INSTANCE : JsonResponderLocationCodec.INSTANCE;
+        responderLocation = Routes.responderLocation(Routes.route(routeLength), 1500.0);
+        encoded = codec.encode(responderLocation);
+    }
+
+    @Benchmark
+    public Object encode() {
+        return codec.encode(responderLocation);
+    }
+
+    @Benchmark
+    public ResponderLocation decode() {
+        return codec.decode(encoded);
+    }
+}
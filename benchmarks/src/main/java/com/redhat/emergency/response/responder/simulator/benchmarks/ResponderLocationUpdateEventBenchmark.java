@@ -0,0 +1,53 @@
+package com.redhat.emergency.response.responder.simulator.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import com.redhat.emergency.response.responder.simulator.model.ResponderLocation;
+import com.redhat.emergency.response.responder.simulator.outgoing.PayloadFormat;
+import com.redhat.emergency.response.responder.simulator.outgoing.ResponderLocationUpdateEvent;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Building the messages sent to the responder-location-update channel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ResponderLocationUpdateEventBenchmark {
+
+    @Param({"JSON", "PROTOBUF"})
+    private PayloadFormat format;
+
+    private ResponderLocation responderLocation;
+
+    @Setup
+    public void setup() {
+        responderLocation = Routes.responderLocation(Routes.route(100), 1500.0);
+        responderLocation.calculateNextLocation();
+        responderLocation.moveToNextLocation();
+    }
+
+    @Benchmark
+    public byte[] payload() {
+        return ResponderLocationUpdateEvent.payload(responderLocation, format);
+    }
+
+    @Benchmark
+    public Message<byte[]> message() {
+        return ResponderLocationUpdateEvent.message(responderLocation.getResponderId(), responderLocation, format);
+    }
+}
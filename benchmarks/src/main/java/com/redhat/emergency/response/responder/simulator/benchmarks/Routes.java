@@ -0,0 +1,36 @@
+package com.redhat.emergency.response.responder.simulator.benchmarks;
+
+import java.util.SplittableRandom;
+
+import com.redhat.emergency.response.responder.simulator.model.Coordinates;
+import com.redhat.emergency.response.responder.simulator.model.ResponderLocation;
+import com.redhat.emergency.response.responder.simulator.model.Route;
+
+/**
+ * Reproducible test routes: a random walk of about 10 meter per step from a fixed origin, with a wayPoint halfway and
+ * the destination at the end.
+ */
+class Routes {
+
+    static final double ORIGIN_LAT = 34.2;
+
+    static final double ORIGIN_LON = -77.9;
+
+    static Route route(int steps) {
+        SplittableRandom random = new SplittableRandom(steps);
+        Route.Builder builder = Route.builder(steps);
+        double lat = ORIGIN_LAT;
+        double lon = ORIGIN_LON;
+        for (int i = 0; i < steps; i++) {
+            lat += 0.00006 + random.nextDouble(-0.00003, 0.00003);
+            lon += random.nextDouble(-0.0001, 0.0001);
+            builder.add(lat, lon, i == steps / 2, i == steps - 1);
+        }
+        return builder.build();
+    }
+
+    static ResponderLocation responderLocation(Route route, double distanceUnit) {
+        return new ResponderLocation("missionId", "responderId", "incidentId", route, Coordinates.of(ORIGIN_LAT, ORIGIN_LON),
+                false, distanceUnit, ResponderLocation.Status.CREATED, false);
+    }
+}
@@ -1,61 +1,188 @@
 package com.redhat.emergency.response.responder.simulator;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.util.Locale;
 
 import com.redhat.emergency.response.responder.simulator.model.Coordinates;
+import org.eclipse.microprofile.config.ConfigProvider;
 
 /**
  *  Reference: http://www.movable-type.co.uk/scripts/latlong.html
+ *  <p>
+ *  Two modes are available, selected with {@code simulator.distance.mode}:
+ *  <ul>
+ *      <li>{@link Mode#HAVERSINE} (default): great circle distances and intermediate points.</li>
+ *      <li>{@link Mode#FAST}: equirectangular approximation. The segment is projected on a plane, with the longitude
+ *      scaled by the cosine of the mean latitude of the segment, and intermediate points are interpolated linearly.
+ *      For segments up to 10 km at latitudes between -70 and 70 degrees the relative distance error versus haversine is
+ *      below 1e-6 (less than 1 cm), and an intermediate point is less than 6 m away from the great circle point (less
+ *      than 0.1 m for segments up to 1 km), which is below the 4 decimal places precision of the simulated positions.
+ *      The error grows with the square of the segment length and with the latitude.</li>
+ *  </ul>
+ *  The mode is read from the configuration once, when the class is loaded, so every route is measured and followed with the
+ *  same mode. The methods of {@link Mode} calculate with a given mode.
  */
 public class DistanceHelper {
 
     static final int R = 6371; // Radius of the earth
 
+    private static final double R_METER = R * 1000.0;
+
+    private static final int PRECISION = 10_000; // 4 decimal places
+
+    public enum Mode {
+
+        HAVERSINE {
+            @Override
+            public double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
+                return haversine(lat1, lon1, lat2, lon2, Math.cos(Math.toRadians(lat1)), Math.cos(Math.toRadians(lat2)));
+            }
+
+            @Override
+            public void calculateCumulativeDistances(int[] latE6, int[] lonE6, double[] cumulative, int length) {
+                if (length == 0) {
+                    return;
+                }
+                cumulative[0] = 0.0;
+                double lat1 = Coordinates.toDegrees(latE6[0]);
+                double lon1 = Coordinates.toDegrees(lonE6[0]);
+                double cos1 = Math.cos(Math.toRadians(lat1));
+                for (int i = 1; i < length; i++) {
+                    double lat2 = Coordinates.toDegrees(latE6[i]);
+                    double lon2 = Coordinates.toDegrees(lonE6[i]);
+                    double cos2 = Math.cos(Math.toRadians(lat2));
+                    cumulative[i] = cumulative[i - 1] + haversine(lat1, lon1, lat2, lon2, cos1, cos2);
+                    lat1 = lat2;
+                    lon1 = lon2;
+                    cos1 = cos2;
+                }
+            }
+
+            @Override
+            public Coordinates calculateIntermediateCoordinate(double lat1, double lon1, double lat2, double lon2, double distance) {
+                double latR1 = Math.toRadians(lat1);
+                double latR2 = Math.toRadians(lat2);
+                double lonR1 = Math.toRadians(lon1);
+                double longDiff= Math.toRadians(lon2-lon1);
+                double y= Math.sin(longDiff)*Math.cos(latR2);
+                double x=Math.cos(latR1)*Math.sin(latR2)-Math.sin(latR1)*Math.cos(latR2)*Math.cos(longDiff);
+
+                double bearing = (Math.toDegrees(Math.atan2(y, x))+360)%360;
+
+                double bearingR = Math.toRadians(bearing);
+
+                double distFrac = distance / (R * 1000);
+
+                double a = Math.sin(distFrac) * Math.cos(latR1);
+                double latDest = Math.asin(Math.sin(latR1) * Math.cos(distFrac) + a * Math.cos(bearingR));
+                double lonDest = lonR1 + Math.atan2(Math.sin(bearingR) * a, Math.cos(distFrac) - Math.sin(latR1) * Math.sin(latDest));
+
+                return Coordinates.ofMicrodegrees(round(Math.toDegrees(latDest)), round(Math.toDegrees(lonDest)));
+            }
+        },
+
+        FAST {
+            @Override
+            public double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
+                return fastDistance(lat1, lon1, lat2, lon2);
+            }
+
+            @Override
+            public void calculateCumulativeDistances(int[] latE6, int[] lonE6, double[] cumulative, int length) {
+                if (length == 0) {
+                    return;
+                }
+                cumulative[0] = 0.0;
+                double lat1 = Coordinates.toDegrees(latE6[0]);
+                double lon1 = Coordinates.toDegrees(lonE6[0]);
+                for (int i = 1; i < length; i++) {
+                    double lat2 = Coordinates.toDegrees(latE6[i]);
+                    double lon2 = Coordinates.toDegrees(lonE6[i]);
+                    cumulative[i] = cumulative[i - 1] + fastDistance(lat1, lon1, lat2, lon2);
+                    lat1 = lat2;
+                    lon1 = lon2;
+                }
+            }
+
+            @Override
+            public Coordinates calculateIntermediateCoordinate(double lat1, double lon1, double lat2, double lon2, double distance) {
+                double segment = fastDistance(lat1, lon1, lat2, lon2);
+                double fraction = segment == 0.0 ? 0.0 : distance / segment;
+                return Coordinates.ofMicrodegrees(round(lat1 + (lat2 - lat1) * fraction), round(lon1 + (lon2 - lon1) * fraction));
+            }
+        };
+
+        /**
+         * @return the distance in meter between the two points
+         */
+        public abstract double calculateDistance(double lat1, double lon1, double lat2, double lon2);
+
+        /**
+         * Calculates the distance in meter along a polyline of {@code length} points, given in microdegrees:
+         * {@code cumulative[i]} is the distance from the first point to point i. The cosine of the latitude is calculated
+         * once per point (haversine) or once per segment (fast mode).
+         */
+        public abstract void calculateCumulativeDistances(int[] latE6, int[] lonE6, double[] cumulative, int length);
+
+        /**
+         * @return the point {@code distance} meters from the first point towards the second, rounded to 4 decimal places
+         */
+        public abstract Coordinates calculateIntermediateCoordinate(double lat1, double lon1, double lat2, double lon2, double distance);
+
+        static Mode of(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private static final Mode MODE = Mode.of(ConfigProvider.getConfig().getOptionalValue("simulator.distance.mode", String.class)
+            .orElse("haversine"));
+
+    public static Mode getMode() {
+        return MODE;
+    }
+
     public static double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
+        return MODE.calculateDistance(lat1, lon1, lat2, lon2);
+    }
+
+    public static void calculateCumulativeDistances(int[] latE6, int[] lonE6, double[] cumulative, int length) {
+        MODE.calculateCumulativeDistances(latE6, lonE6, cumulative, length);
+    }
+
+    private static double haversine(double lat1, double lon1, double lat2, double lon2, double cosLat1, double cosLat2) {
 
         double latDistance = Math.toRadians(lat2 - lat1);
         double lonDistance = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2) + Math.cos(Math.toRadians(lat1))
-                * Math.cos(Math.toRadians(lat2)) * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2) + cosLat1
+                * cosLat2 * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
         double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
 
         return R * c * 1000;
     }
 
+    private static double fastDistance(double lat1, double lon1, double lat2, double lon2) {
+        double x = Math.toRadians(lon2 - lon1) * Math.cos(Math.toRadians((lat1 + lat2) / 2));
+        double y = Math.toRadians(lat2 - lat1);
+        return R_METER * Math.sqrt(x * x + y * y);
+    }
+
     public static double calculateDistance(Coordinates c1, Coordinates c2) {
         return calculateDistance(c1.getLatD(), c1.getLonD(), c2.getLatD(), c2.getLonD());
     }
 
     public static Coordinates calculateIntermediateCoordinate(Coordinates c1, Coordinates c2, double distance) {
-
-        double latR1 = Math.toRadians(c1.getLatD());
-        double latR2 = Math.toRadians(c2.getLatD());
-        double lonR1 = Math.toRadians(c1.getLonD());
-        double longDiff= Math.toRadians(c2.getLonD()-c1.getLonD());
-        double y= Math.sin(longDiff)*Math.cos(latR2);
-        double x=Math.cos(latR1)*Math.sin(latR2)-Math.sin(latR1)*Math.cos(latR2)*Math.cos(longDiff);
-
-        double bearing = (Math.toDegrees(Math.atan2(y, x))+360)%360;
-
-        double bearingR = Math.toRadians(bearing);
-
-        double distFrac = distance / (R * 1000);
-
-        double a = Math.sin(distFrac) * Math.cos(latR1);
-        double latDest = Math.asin(Math.sin(latR1) * Math.cos(distFrac) + a * Math.cos(bearingR));
-        double lonDest = lonR1 + Math.atan2(Math.sin(bearingR) * a, Math.cos(distFrac) - Math.sin(latR1) * Math.sin(latDest));
-
-        return new Coordinates(toBigDecimal(Math.toDegrees(latDest),4), toBigDecimal(Math.toDegrees(lonDest), 4));
-
+        return calculateIntermediateCoordinate(c1.getLatD(), c1.getLonD(), c2.getLatD(), c2.getLonD(), distance);
     }
 
-    private static BigDecimal toBigDecimal(double value, int places) {
-        if (places < 0) throw new IllegalArgumentException();
+    public static Coordinates calculateIntermediateCoordinate(double lat1, double lon1, double lat2, double lon2, double distance) {
+        return MODE.calculateIntermediateCoordinate(lat1, lon1, lat2, lon2, distance);
+    }
 
-        BigDecimal bd = new BigDecimal(Double.toString(value));
-        bd = bd.setScale(places, RoundingMode.HALF_UP);
-        return bd;
+    /**
+     * Rounds half up to 4 decimal places, and returns the result in microdegrees.
+     */
+    private static int round(double degrees) {
+        int rounded = (int) Math.floor(Math.abs(degrees) * PRECISION + 0.5) * (1_000_000 / PRECISION);
+        return degrees < 0 ? -rounded : rounded;
     }
 
 }
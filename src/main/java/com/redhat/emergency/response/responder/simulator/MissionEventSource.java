@@ -2,16 +2,17 @@ package com.redhat.emergency.response.responder.simulator;
 
 import java.util.Arrays;
 import java.util.Optional;
-import java.util.concurrent.CompletionStage;
 import javax.inject.Inject;
 
+import com.redhat.emergency.response.responder.simulator.incoming.MissionStarted;
+import com.redhat.emergency.response.responder.simulator.incoming.MissionStartedParser;
+import com.redhat.emergency.response.responder.simulator.incoming.OrderedConcurrentSubscriber;
 import io.smallrye.mutiny.Uni;
 import io.smallrye.reactive.messaging.ce.IncomingCloudEventMetadata;
-import io.vertx.core.json.JsonObject;
-import io.vertx.mutiny.core.eventbus.EventBus;
-import org.eclipse.microprofile.reactive.messaging.Acknowledgment;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.reactive.messaging.Incoming;
 import org.eclipse.microprofile.reactive.messaging.Message;
+import org.reactivestreams.Subscriber;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,23 +24,33 @@ public class MissionEventSource {
     static final String[] ACCEPTED_MESSAGE_TYPES = {MISSION_STARTED_EVENT};
 
     @Inject
-    EventBus eventBus;
+    Simulator simulator;
 
+    @ConfigProperty(name = "simulator.mission-event.concurrency", defaultValue = "1")
+    int concurrency;
+
+    /**
+     * Processes up to {@code simulator.mission-event.concurrency} messages at a time, in order per key, and acknowledges
+     * them in order per partition.
+     */
     @Incoming("mission-event")
-    @Acknowledgment(Acknowledgment.Strategy.MANUAL)
-    public Uni<CompletionStage<Void>> process(Message<String> missionCommandMessage) {
+    public Subscriber<Message<String>> subscriber() {
+        log.info("Processing up to " + concurrency + " mission events concurrently");
+        return new OrderedConcurrentSubscriber<>(concurrency, this::handle);
+    }
+
+    private Uni<Void> handle(Message<String> missionCommandMessage) {
         return Uni.createFrom().item(missionCommandMessage)
                 .onItem().transform(this::accept)
-                .onItem().ifNotNull().transformToUni(this::toSimulator)
-                .onItem().transform(v -> missionCommandMessage.ack());
+                .onItem().ifNotNull().transformToUni(this::toSimulator);
     }
 
-    private Uni<Void> toSimulator(JsonObject payload) {
-        return eventBus.request("simulator-mission-created", payload).map(m -> null);
+    private Uni<Void> toSimulator(MissionStarted missionStarted) {
+        return simulator.missionCreated(missionStarted);
     }
 
     @SuppressWarnings({"rawtypes", "unchecked"})
-    private JsonObject accept(Message<String> message) {
+    private MissionStarted accept(Message<String> message) {
         Optional<IncomingCloudEventMetadata> metadata = message.getMetadata(IncomingCloudEventMetadata.class);
         if (metadata.isEmpty()) {
             log.warn("Incoming message is not a CloudEvent");
@@ -57,9 +68,9 @@ public class MissionEventSource {
             return null;
         }
         try {
-            return new JsonObject(message.getPayload());
+            return MissionStartedParser.parse(message.getPayload());
         } catch (Exception e) {
-            log.warn("Unexpected message which is not JSON.");
+            log.warn("Unexpected message which is not a MissionStartedEvent: " + e.getMessage());
             log.warn("Message: " + message.getPayload());
         }
         return null;
@@ -8,7 +8,6 @@ import io.quarkus.vertx.web.Route;
 import io.quarkus.vertx.web.RoutingExchange;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.json.JsonObject;
-import io.vertx.mutiny.core.eventbus.EventBus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,7 +17,7 @@ public class RestApi {
     private static final Logger log = LoggerFactory.getLogger(RestApi.class);
 
     @Inject
-    EventBus eventBus;
+    Simulator simulator;
 
     @Route(path = "api/mission", methods = HttpMethod.POST)
     void missionStatus(@Body JsonObject mission, RoutingExchange ex) {
@@ -26,12 +25,14 @@ public class RestApi {
             ex.response().setStatusCode(500).end();
             return;
         }
-        eventBus.request("simulator-responderlocation-status", mission).subscribe().with(m -> ex.response().setStatusCode(200).end());
+        // the status update is processed in the background, as the response doesn't depend on it
+        simulator.responderLocationStatus(mission.getString("missionId"), mission.getString("status")).subscribe().with(v -> {});
+        ex.response().setStatusCode(200).end();
     }
 
     @Route(path = "api/clear", methods = HttpMethod.POST)
     void clear(RoutingExchange ex) {
-        eventBus.request("simulator-clear", new JsonObject()).subscribe().with(m -> ex.response().setStatusCode(200).end());
+        simulator.clear().subscribe().with(v -> ex.response().setStatusCode(200).end());
     }
 
 }
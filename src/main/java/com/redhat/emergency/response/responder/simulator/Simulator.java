@@ -1,28 +1,38 @@
 package com.redhat.emergency.response.responder.simulator;
 
-import java.math.BigDecimal;
-import java.time.Duration;
-import java.time.OffsetDateTime;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 
-import com.redhat.emergency.response.responder.simulator.model.Coordinates;
-import com.redhat.emergency.response.responder.simulator.model.MissionStep;
+import com.redhat.emergency.response.responder.simulator.incoming.MissionStarted;
+import com.redhat.emergency.response.responder.simulator.journal.MissionJournal;
+import com.redhat.emergency.response.responder.simulator.lease.MissionLeases;
 import com.redhat.emergency.response.responder.simulator.model.ResponderLocation;
+import com.redhat.emergency.response.responder.simulator.outgoing.CoalescingBuffer;
+import com.redhat.emergency.response.responder.simulator.outgoing.PayloadFormat;
+import com.redhat.emergency.response.responder.simulator.outgoing.ResponderLocationUpdateEvent;
 import com.redhat.emergency.response.responder.simulator.repository.ResponderLocationRepository;
 import com.redhat.emergency.response.responder.simulator.streams.ResponderService;
+import com.redhat.emergency.response.responder.simulator.tick.TickScheduler;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
 import io.quarkus.vertx.ConsumeEvent;
 import io.smallrye.mutiny.Multi;
 import io.smallrye.mutiny.Uni;
-import io.smallrye.mutiny.operators.multi.processors.UnicastProcessor;
-import io.smallrye.reactive.messaging.ce.OutgoingCloudEventMetadata;
-import io.smallrye.reactive.messaging.kafka.KafkaRecord;
 import io.vertx.core.json.JsonObject;
 import io.vertx.mutiny.core.eventbus.Message;
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.reactive.messaging.Outgoing;
 import org.slf4j.Logger;
@@ -39,112 +49,355 @@ public class Simulator {
     @Inject
     ResponderLocationRepository repository;
 
+    @Inject
+    TickScheduler scheduler;
+
+    @Inject
+    MissionJournal journal;
+
+    @Inject
+    MissionLeases leases;
+
+    @Inject
+    MeterRegistry registry;
+
     @ConfigProperty(name = "simulator.delay")
     long delay;
 
-    @ConfigProperty(name = "simulator.distance.base")
-    double baseDistance;
+    @ConfigProperty(name = "simulator.outgoing.capacity", defaultValue = "10000")
+    int outgoingCapacity;
 
-    private final UnicastProcessor<Pair<String, ResponderLocation>> processor = UnicastProcessor.create();
+    @ConfigProperty(name = "simulator.outgoing.overflow", defaultValue = "drop-oldest")
+    String outgoingOverflow;
 
-    @ConsumeEvent("simulator-mission-created")
-    public void processMissionCreated(Message<JsonObject> message) {
-        toResponderLocation(message.body()).onItem().transform(r -> repository.put(r))
-                .invoke(this::waitForLocationUpdate)
-                .subscribe().with(key -> message.replyAndForget(new JsonObject()), throwable -> {
-                    log.error("Error while processing message with missionId " + message.body().getString("id"), throwable);
-                    message.replyAndForget(new JsonObject());
+    @ConfigProperty(name = "simulator.outgoing.payload-format", defaultValue = "json")
+    String payloadFormatName;
+
+    private PayloadFormat payloadFormat;
+
+    // location updates waiting for the responder-location-update channel, per responder. An unsent update of a moving
+    // responder is replaced by a newer one, status changes are always sent.
+    private CoalescingBuffer<String, ResponderLocation> outgoing;
+
+    // active missions handled by this instance, by status
+    private final Map<ResponderLocation.Status, AtomicLong> missions = new EnumMap<>(ResponderLocation.Status.class);
+
+    @PostConstruct
+    void init() {
+        log.info("Distance calculation mode: " + DistanceHelper.getMode());
+        for (ResponderLocation.Status status : ResponderLocation.Status.values()) {
+            if (status != ResponderLocation.Status.DROPPED) {
+                AtomicLong count = new AtomicLong();
+                missions.put(status, count);
+                Gauge.builder("simulator.missions", count, AtomicLong::get).tag("status", status.name())
+                        .description("Active missions handled by this instance").register(registry);
+            }
+        }
+        payloadFormat = PayloadFormat.of(payloadFormatName);
+        log.info("Location update payload format: " + payloadFormat);
+        outgoing = new CoalescingBuffer<>(outgoingCapacity,
+                CoalescingBuffer.OverflowPolicy.valueOf(outgoingOverflow.replace('-', '_').toUpperCase(Locale.ROOT)),
+                (pending, update) -> pending.getStatus() == ResponderLocation.Status.MOVING,
+                update -> update.getStatus() == ResponderLocation.Status.MOVING);
+        Gauge.builder("simulator.outgoing.buffer", outgoing, CoalescingBuffer::size)
+                .description("Location updates waiting to be sent to the responder-location-update channel").register(registry);
+        FunctionCounter.builder("simulator.outgoing.coalesced", outgoing, CoalescingBuffer::coalesced)
+                .description("Location updates replaced by a newer update for the same responder before they were sent").register(registry);
+        FunctionCounter.builder("simulator.outgoing.dropped", outgoing, CoalescingBuffer::dropped)
+                .description("Location updates dropped because the outgoing buffer was full").register(registry);
+        scheduler.onTick(this::processLocationUpdates);
+        leases.onAdopted(this::missionsAdopted);
+    }
+
+    /**
+     * Resumes the missions of the journal, if it is enabled. The repository is the reference for the state of the missions:
+     * the missions it stores are resumed from their stored state, which may be newer than the journal, e.g. after a pick up
+     * handled by another instance. A mission it doesn't store anymore ended, or was cleared, unless the repository doesn't
+     * outlive the instance, in which case the mission is stored again from the journal. Only the missions whose lease is
+     * reclaimed are resumed, see {@link MissionLeases#reclaimAll}.
+     */
+    void onStart(@Observes StartupEvent e) {
+        if (!journal.isEnabled()) {
+            return;
+        }
+        Map<String, ResponderLocation> journaled = journal.replay();
+        if (journaled.isEmpty()) {
+            return;
+        }
+        // the missions adopted by another instance since their lease expired stay with it
+        leases.reclaimAll(journaled.keySet()).onItem().transformToUni(reclaimed -> {
+            Map<String, ResponderLocation> responderLocations = new LinkedHashMap<>(journaled);
+            responderLocations.keySet().retainAll(reclaimed);
+            List<String> adopted = journaled.keySet().stream().filter(key -> !responderLocations.containsKey(key))
+                    .collect(Collectors.toList());
+            if (!adopted.isEmpty()) {
+                log.info(adopted.size() + " missions of the journal are simulated by another instance");
+                journal.removeAll(adopted);
+            }
+            return repository.getAll(responderLocations.keySet()).invoke(stored -> restore(responderLocations, stored));
+        }).subscribe().with(stored -> {},
+                throwable -> log.error("Error while restoring " + journaled.size() + " missions from the journal", throwable));
+    }
+
+    private void restore(Map<String, ResponderLocation> journaled, Map<String, ResponderLocation> stored) {
+        List<ResponderLocation> lost = new ArrayList<>();
+        List<String> ended = new ArrayList<>();
+        journaled.forEach((key, responderLocation) -> {
+            if (!stored.containsKey(key)) {
+                if (repository.isDurable()) {
+                    ended.add(key);
+                } else {
+                    lost.add(responderLocation);
+                }
+            }
+        });
+        journal.removeAll(ended);
+        leases.release(ended);
+        journal.putAll(stored.values());
+        stored.values().forEach(this::resume);
+        log.info("Resumed " + stored.size() + " missions of the journal from the repository, " + ended.size() + " missions ended");
+        repository.putAll(lost).subscribe().with(unused -> {
+            lost.forEach(this::resume);
+            if (!lost.isEmpty()) {
+                log.info("Resumed " + lost.size() + " missions from the journal");
+            }
+        }, throwable -> log.error("Error while restoring " + lost.size() + " missions from the journal", throwable));
+    }
+
+    /**
+     * Creates the mission and schedules its first location update. Failures are logged, the returned Uni completes once
+     * the mission is processed, with or without success.
+     */
+    public Uni<Void> missionCreated(MissionStarted missionStarted) {
+        return toResponderLocation(missionStarted)
+                .onItem().transformToUni(r -> leases.acquire(r.key()).onItem().transformToUni(unused -> repository.put(r))
+                        .invoke(key -> journal.put(r)))
+                .invoke(key -> {
+                    transition(null, ResponderLocation.Status.CREATED);
+                    waitForLocationUpdate(key);
+                })
+                .onItemOrFailure().transform((key, throwable) -> {
+                    if (throwable != null) {
+                        log.error("Error while processing message with missionId " + missionStarted.getMissionId(), throwable);
+                    }
+                    return null;
                 });
     }
 
-    @ConsumeEvent("simulator-responderlocation-status")
-    public void processResponderLocationStatus(Message<JsonObject> message) {
-        message.replyAndForget(new JsonObject());
-        String missionId = message.body().getString("missionId");
-        String status = message.body().getString("status");
-        if (ResponderLocation.Status.PICKEDUP.name().equalsIgnoreCase(status)) {
-            log.debug("Processing responderlocation status update for ResponderLocation " + missionId);
-            ResponderLocation responderLocation = repository.get(missionId);
+    /**
+     * Lets a waiting mission continue when its status is PICKEDUP, other statuses are ignored. Failures are logged.
+     */
+    public Uni<Void> responderLocationStatus(String missionId, String status) {
+        if (!ResponderLocation.Status.PICKEDUP.name().equalsIgnoreCase(status)) {
+            return Uni.createFrom().nullItem();
+        }
+        log.debug("Processing responderlocation status update for ResponderLocation " + missionId);
+        return repository.get(missionId).onItem().transformToUni(responderLocation -> {
             if (responderLocation == null) {
                 log.warn("ResponderLocation " + missionId + " not found in repository.");
-                return;
+                return Uni.createFrom().<String>nullItem();
             }
+            ResponderLocation.Status previous = responderLocation.getStatus();
             responderLocation.continueMoving(ResponderLocation.Status.PICKEDUP);
-            repository.put(responderLocation);
-            processor.onNext(new ImmutablePair<>(responderLocation.getResponderId(), responderLocation));
-            waitForLocationUpdate(missionId);
-        }
+            // the mission is simulated by this instance from now on
+            return leases.acquire(missionId).onItem().transformToUni(unused -> repository.put(responderLocation)).invoke(key -> {
+                journal.put(responderLocation);
+                transition(previous, ResponderLocation.Status.PICKEDUP);
+                send(responderLocation);
+                waitForLocationUpdate(key);
+            });
+        }).onItemOrFailure().transform((key, throwable) -> {
+            if (throwable != null) {
+                log.error("Error while processing responderlocation status update for ResponderLocation " + missionId, throwable);
+            }
+            return null;
+        });
     }
 
-    @ConsumeEvent("simulator-clear")
-    public void processClear(Message<JsonObject> message) {
+    /**
+     * Cancels all the missions and clears the repository. Failures are logged.
+     */
+    public Uni<Void> clear() {
         log.info("Clearing the repository");
-        repository.clear().subscribe().with(unused -> message.replyAndForget(new JsonObject()), throwable -> {
-            log.error("Error while clearing the repository", throwable);
-            message.replyAndForget(new JsonObject());
+        scheduler.cancelAll();
+        return repository.clear().onItemOrFailure().transform((unused, throwable) -> {
+            if (throwable == null) {
+                journal.clear();
+                leases.releaseAll();
+                missions.values().forEach(count -> count.set(0));
+            } else {
+                log.error("Error while clearing the repository", throwable);
+            }
+            return null;
         });
     }
 
+    // event bus adapters, the components of the simulator call the methods above directly
+
+    @ConsumeEvent("simulator-mission-created")
+    public void processMissionCreated(Message<MissionStarted> message) {
+        missionCreated(message.body()).subscribe().with(v -> message.replyAndForget(new JsonObject()));
+    }
+
+    @ConsumeEvent("simulator-responderlocation-status")
+    public void processResponderLocationStatus(Message<JsonObject> message) {
+        message.replyAndForget(new JsonObject());
+        responderLocationStatus(message.body().getString("missionId"), message.body().getString("status")).subscribe().with(v -> {});
+    }
+
+    @ConsumeEvent("simulator-clear")
+    public void processClear(Message<JsonObject> message) {
+        clear().subscribe().with(v -> message.replyAndForget(new JsonObject()));
+    }
+
     @Outgoing("responder-location-update")
-    public Multi<org.eclipse.microprofile.reactive.messaging.Message<String>> responderLocationUpdateEvent() {
-
-        return processor.onItem().transform(p -> {
-            ResponderLocation rl = p.getRight();
-            String json = new JsonObject().put("responderId", rl.getResponderId())
-                    .put("missionId", rl.getMissionId())
-                    .put("incidentId", rl.getIncidentId())
-                    .put("status", rl.getStatus().name())
-                    .put("lat", rl.getCurrentPosition().getLatD())
-                    .put("lon", rl.getCurrentPosition().getLonD())
-                    .put("human", rl.isPerson())
-                    .put("continue", rl.getStatus().equals(ResponderLocation.Status.MOVING)
-                            || rl.getStatus().equals(ResponderLocation.Status.PICKEDUP))
-                    .encode();
-            log.debug("Sending message to responder-location-update channel. Key: " + p.getLeft() + " - Message: " + json);
-            OutgoingCloudEventMetadata<String> cloudEventMetadata = OutgoingCloudEventMetadata.<String>builder().withType("ResponderLocationUpdatedEvent")
-                    .withTimestamp(OffsetDateTime.now().toZonedDateTime()).build();
-            return KafkaRecord.of(p.getLeft(), json).addMetadata(cloudEventMetadata);
+    public Multi<org.eclipse.microprofile.reactive.messaging.Message<byte[]>> responderLocationUpdateEvent() {
+
+        return Multi.createFrom().publisher(outgoing).onItem().transform(rl -> {
+            org.eclipse.microprofile.reactive.messaging.Message<byte[]> message = ResponderLocationUpdateEvent.message(rl.getResponderId(), rl, payloadFormat);
+            if (log.isDebugEnabled()) {
+                log.debug("Sending message to responder-location-update channel. Key: " + rl.getResponderId() + " - Message: "
+                        + (payloadFormat == PayloadFormat.JSON ? new String(message.getPayload(), StandardCharsets.UTF_8)
+                        : message.getPayload().length + " bytes of " + payloadFormat.contentType()));
+            }
+            return message;
         });
 
     }
 
     private void waitForLocationUpdate(String key) {
-        Uni.createFrom().item(key).onItem().delayIt().by(Duration.ofMillis(delay))
-                .onItem().invoke(this::processLocationUpdate)
-                .subscribe().with(unused -> {});
+        scheduler.schedule(key, delay);
+    }
+
+    private void send(ResponderLocation responderLocation) {
+        outgoing.offer(responderLocation.getResponderId(), responderLocation);
     }
 
-    private void processLocationUpdate(String key) {
-        log.debug("Processing location update for ResponderLocation " + key);
-        ResponderLocation responderLocation = repository.get(key);
-        if (responderLocation == null) {
-            log.warn("ResponderLocation " + key + " not found in repository.");
+    private void transition(ResponderLocation.Status from, ResponderLocation.Status to) {
+        if (from == to) {
             return;
         }
-        responderLocation.calculateNextLocation();
-        responderLocation.moveToNextLocation();
-        if (responderLocation.getStatus().equals(ResponderLocation.Status.MOVING) || responderLocation.getStatus().equals(ResponderLocation.Status.PICKEDUP)) {
-            waitForLocationUpdate(key);
+        if (from != null && missions.containsKey(from)) {
+            missions.get(from).decrementAndGet();
         }
-        if (responderLocation.getStatus().equals(ResponderLocation.Status.DROPPED)) {
-            repository.remove(key);
-        } else {
-            repository.put(responderLocation);
+        if (missions.containsKey(to)) {
+            missions.get(to).incrementAndGet();
         }
-        processor.onNext(new ImmutablePair<>(responderLocation.getResponderId(), responderLocation));
     }
 
+    private void processLocationUpdates(List<String> keys) {
+        log.debug("Processing location update for " + keys.size() + " ResponderLocations");
+        repository.getAll(keys).subscribe().with(responderLocations -> processLocationUpdates(keys, responderLocations), throwable -> {
+            log.error("Error while loading " + keys.size() + " ResponderLocations from the repository", throwable);
+            // retry on the next tick
+            keys.forEach(this::waitForLocationUpdate);
+        });
+    }
 
-    private Uni<ResponderLocation> toResponderLocation(JsonObject json) {
-        return responderService.responder(json.getString("responderId"))
-                .onItem().transform(responder -> {
-                    List<MissionStep> steps = json.getJsonArray("steps").stream().map(o -> (JsonObject) o)
-                            .map(j -> new MissionStep(new Coordinates(BigDecimal.valueOf(j.getDouble("lat")), BigDecimal.valueOf(j.getDouble("lon"))),
-                                    j.getBoolean("wayPoint"), j.getBoolean("destination"))).collect(Collectors.toList());
-                    Coordinates currentPosition = new Coordinates(BigDecimal.valueOf(json.getDouble("responderStartLat")),
-                            BigDecimal.valueOf((json.getDouble("responderStartLong"))));
-                    return new ResponderLocation(json.getString("id"), json.getString("responderId"), json.getString("incidentId"),
-                            steps, currentPosition, responder.getBoolean("person", false), responder.getDouble("distanceUnit", baseDistance));
-                });
+    private void processLocationUpdates(List<String> keys, Map<String, ResponderLocation> responderLocations) {
+        List<ResponderLocation> updated = new ArrayList<>(keys.size());
+        List<ResponderLocation.Status> previous = new ArrayList<>(keys.size());
+        List<ResponderLocation> active = new ArrayList<>(keys.size());
+        List<String> dropped = new ArrayList<>();
+        for (String key : keys) {
+            ResponderLocation responderLocation = responderLocations.get(key);
+            if (responderLocation == null) {
+                log.warn("ResponderLocation " + key + " not found in repository.");
+                journal.removeAll(List.of(key));
+                leases.release(List.of(key));
+                continue;
+            }
+            ResponderLocation.Status status = responderLocation.getStatus();
+            if (!leases.owns(key)) {
+                log.debug("ResponderLocation " + key + " is simulated by another instance");
+                transition(status, null);
+                continue;
+            }
+            try {
+                responderLocation.calculateNextLocation();
+                responderLocation.moveToNextLocation();
+            } catch (Exception e) {
+                log.error("Error while processing location update for ResponderLocation " + key, e);
+                continue;
+            }
+            if (responderLocation.getStatus().equals(ResponderLocation.Status.DROPPED)) {
+                dropped.add(key);
+            } else {
+                active.add(responderLocation);
+            }
+            updated.add(responderLocation);
+            previous.add(status);
+        }
+        // the active missions are stored and the dropped ones removed independently, the updates of each are sent once
+        // they are written, whatever happens to the other write
+        repository.putAll(active).subscribe().with(unused -> {
+            journal.putAll(active);
+            locationsUpdated(updated, previous, false);
+        }, throwable -> {
+            log.error("Error while writing " + active.size() + " ResponderLocations to the repository", throwable);
+            // the new locations were not stored, retry from the stored state on the next tick
+            active.forEach(responderLocation -> waitForLocationUpdate(responderLocation.key()));
+        });
+        repository.removeAll(dropped).subscribe().with(unused -> {
+            journal.removeAll(dropped);
+            leases.release(dropped);
+            locationsUpdated(updated, previous, true);
+        }, throwable -> {
+            log.error("Error while removing " + dropped.size() + " ResponderLocations from the repository", throwable);
+            // the missions are still stored, they are dropped again on the next tick
+            dropped.forEach(this::waitForLocationUpdate);
+        });
+    }
+
+    private void locationsUpdated(List<ResponderLocation> updated, List<ResponderLocation.Status> previous, boolean dropped) {
+        for (int i = 0; i < updated.size(); i++) {
+            ResponderLocation responderLocation = updated.get(i);
+            if ((responderLocation.getStatus() == ResponderLocation.Status.DROPPED) != dropped) {
+                continue;
+            }
+            transition(previous.get(i), responderLocation.getStatus());
+            if (responderLocation.getStatus().equals(ResponderLocation.Status.MOVING) || responderLocation.getStatus().equals(ResponderLocation.Status.PICKEDUP)) {
+                waitForLocationUpdate(responderLocation.key());
+            }
+            send(responderLocation);
+        }
+    }
+
+    /**
+     * Resumes the missions adopted from an instance whose leases expired. The missions which are not in the repository
+     * anymore are released, the missions which can't be loaded are abandoned so their lease expires again.
+     */
+    private void missionsAdopted(List<String> keys) {
+        repository.getAll(keys).subscribe().with(responderLocations -> {
+            List<String> missing = new ArrayList<>();
+            for (String key : keys) {
+                ResponderLocation responderLocation = responderLocations.get(key);
+                if (responderLocation == null) {
+                    missing.add(key);
+                } else {
+                    resume(responderLocation);
+                }
+            }
+            leases.release(missing);
+        }, throwable -> {
+            log.error("Error while loading " + keys.size() + " adopted ResponderLocations from the repository", throwable);
+            leases.abandon(keys);
+        });
+    }
+
+    private void resume(ResponderLocation responderLocation) {
+        transition(null, responderLocation.getStatus());
+        // a waiting mission continues when it is picked up
+        if (responderLocation.getStatus() != ResponderLocation.Status.WAITING) {
+            waitForLocationUpdate(responderLocation.key());
+        }
+    }
+
+    private Uni<ResponderLocation> toResponderLocation(MissionStarted missionStarted) {
+        return responderService.responder(missionStarted.getResponderId())
+                .onItem().transform(responder -> new ResponderLocation(missionStarted.getMissionId(), missionStarted.getResponderId(),
+                        missionStarted.getIncidentId(), missionStarted.getRoute(), missionStarted.getResponderStart(),
+                        responder.isPerson(), responder.getDistanceUnit(),
+                        ResponderLocation.Status.CREATED, false));
     }
 }
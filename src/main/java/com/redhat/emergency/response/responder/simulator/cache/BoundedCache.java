@@ -0,0 +1,189 @@
+package com.redhat.emergency.response.responder.simulator.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Size bounded cache evicting the least recently used entry, with an optional time to live per entry.
+ * <p>
+ * Values loaded from a slower source race with the invalidations of that source: a value read before an invalidation
+ * must not be cached after it. Callers take a {@link #stamp()} before they read the source, and cache the value with
+ * {@link #putIfUnchanged(Object, Object, long)}, which ignores it when the entry of its key was put or invalidated in between.
+ * The changes of the other keys don't affect it.
+ */
+public class BoundedCache<K, V> {
+
+    private final int maxSize;
+
+    private final long ttlNanos;
+
+    private final LongSupplier nanoTime;
+
+    // guarded by this
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    // incremented by every put and invalidation, guarded by this
+    private long stamp = 0;
+
+    // stamp of the last put or invalidation of the recently changed keys, guarded by this. Beyond maxSize keys the oldest
+    // are forgotten, they were last changed at or before the forgotten stamp.
+    private final LinkedHashMap<K, Long> changes = new LinkedHashMap<>();
+
+    private long forgotten = 0;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param ttl time to live of the entries, zero or negative for no expiry
+     */
+    public BoundedCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    BoundedCache(int maxSize, Duration ttl, LongSupplier nanoTime) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than 0");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.isNegative() || ttl.isZero() ? 0 : ttl.toNanos();
+        this.nanoTime = nanoTime;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > BoundedCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return the cached value, or null if there is none or it expired
+     */
+    public V get(K key) {
+        V value = null;
+        synchronized (this) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (ttlNanos > 0 && nanoTime.getAsLong() - entry.created >= ttlNanos) {
+                    entries.remove(key);
+                    evictions.increment();
+                } else {
+                    value = entry.value;
+                }
+            }
+        }
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    public synchronized void put(K key, V value) {
+        changed(key);
+        entries.put(key, new Entry<>(value, nanoTime.getAsLong()));
+    }
+
+    /**
+     * @return the current stamp, to pass to {@link #putIfUnchanged(Object, Object, long)}
+     */
+    public synchronized long stamp() {
+        return stamp;
+    }
+
+    /**
+     * Caches a value read from the source after {@code stamp} was taken, unless the entry of the key was put or invalidated
+     * since.
+     *
+     * @return whether the value was cached
+     */
+    public synchronized boolean putIfUnchanged(K key, V value, long stamp) {
+        Long changed = changes.get(key);
+        if ((changed != null ? changed : forgotten) > stamp) {
+            return false;
+        }
+        put(key, value);
+        return true;
+    }
+
+    public synchronized void invalidate(K key) {
+        changed(key);
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateAll() {
+        forgotten = ++stamp;
+        changes.clear();
+        entries.clear();
+    }
+
+    /**
+     * Removes the expired entries.
+     */
+    public synchronized void expire() {
+        if (ttlNanos <= 0) {
+            return;
+        }
+        long now = nanoTime.getAsLong();
+        Iterator<Entry<V>> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().created >= ttlNanos) {
+                iterator.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private void changed(K key) {
+        changes.remove(key);
+        changes.put(key, ++stamp);
+        if (changes.size() > maxSize) {
+            Iterator<Long> eldest = changes.values().iterator();
+            forgotten = eldest.next();
+            eldest.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of entries removed because the cache was full or they expired
+     */
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    private static class Entry<V> {
+
+        private final V value;
+
+        private final long created;
+
+        private Entry(V value, long created) {
+            this.value = value;
+            this.created = created;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.redhat.emergency.response.responder.simulator.incoming;
+
+import com.redhat.emergency.response.responder.simulator.model.Coordinates;
+import com.redhat.emergency.response.responder.simulator.model.Route;
+
+/**
+ * The fields of a MissionStartedEvent used by the simulator. Handed to the simulator directly, or sent to the
+ * {@code simulator-mission-created} event bus address with a local codec.
+ */
+public class MissionStarted {
+
+    private final String missionId;
+
+    private final String incidentId;
+
+    private final String responderId;
+
+    private final Coordinates responderStart;
+
+    private final Route route;
+
+    public MissionStarted(String missionId, String incidentId, String responderId, Coordinates responderStart, Route route) {
+        this.missionId = missionId;
+        this.incidentId = incidentId;
+        this.responderId = responderId;
+        this.responderStart = responderStart;
+        this.route = route;
+    }
+
+    public String getMissionId() {
+        return missionId;
+    }
+
+    public String getIncidentId() {
+        return incidentId;
+    }
+
+    public String getResponderId() {
+        return responderId;
+    }
+
+    public Coordinates getResponderStart() {
+        return responderStart;
+    }
+
+    public Route getRoute() {
+        return route;
+    }
+}
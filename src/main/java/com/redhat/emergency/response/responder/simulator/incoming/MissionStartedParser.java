@@ -0,0 +1,113 @@
+package com.redhat.emergency.response.responder.simulator.incoming;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.redhat.emergency.response.responder.simulator.model.Coordinates;
+import com.redhat.emergency.response.responder.simulator.model.Route;
+
+/**
+ * Reads a MissionStartedEvent payload token by token, straight into a {@link MissionStarted} and its {@link Route},
+ * without building a JSON tree or a {@code MissionStep} per step. Unknown fields are skipped.
+ */
+public class MissionStartedParser {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private static final int ROUTE_CAPACITY = 64;
+
+    public static MissionStarted parse(String json) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(json)) {
+            expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+            String missionId = null;
+            String incidentId = null;
+            String responderId = null;
+            double startLat = Double.NaN;
+            double startLon = Double.NaN;
+            Route route = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                switch (name) {
+                    case "id":
+                        missionId = parser.getValueAsString();
+                        break;
+                    case "incidentId":
+                        incidentId = parser.getValueAsString();
+                        break;
+                    case "responderId":
+                        responderId = parser.getValueAsString();
+                        break;
+                    case "responderStartLat":
+                        startLat = number(parser, token);
+                        break;
+                    case "responderStartLong":
+                        startLon = number(parser, token);
+                        break;
+                    case "steps":
+                        route = route(parser, token);
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            if (Double.isNaN(startLat) || Double.isNaN(startLon) || route == null) {
+                throw new JsonParseException(parser, "MissionStartedEvent without responderStartLat, responderStartLong or steps");
+            }
+            return new MissionStarted(missionId, incidentId, responderId, Coordinates.of(startLat, startLon), route);
+        }
+    }
+
+    private static Route route(JsonParser parser, JsonToken token) throws IOException {
+        expect(parser, token, JsonToken.START_ARRAY);
+        Route.Builder builder = Route.builder(ROUTE_CAPACITY);
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            double lat = Double.NaN;
+            double lon = Double.NaN;
+            boolean wayPoint = false;
+            boolean destination = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (name) {
+                    case "lat":
+                        lat = number(parser, value);
+                        break;
+                    case "lon":
+                        lon = number(parser, value);
+                        break;
+                    case "wayPoint":
+                        wayPoint = value == JsonToken.VALUE_TRUE;
+                        break;
+                    case "destination":
+                        destination = value == JsonToken.VALUE_TRUE;
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            if (Double.isNaN(lat) || Double.isNaN(lon)) {
+                throw new JsonParseException(parser, "Mission step without lat or lon");
+            }
+            builder.add(lat, lon, wayPoint, destination);
+        }
+        expect(parser, parser.currentToken(), JsonToken.END_ARRAY);
+        return builder.build();
+    }
+
+    private static double number(JsonParser parser, JsonToken token) throws IOException {
+        if (!token.isNumeric()) {
+            throw new JsonParseException(parser, "Expected a number for " + parser.getCurrentName() + " but got " + token);
+        }
+        return parser.getDoubleValue();
+    }
+
+    private static void expect(JsonParser parser, JsonToken token, JsonToken expected) throws IOException {
+        if (token != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but got " + token);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.redhat.emergency.response.responder.simulator.incoming;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+import io.smallrye.mutiny.Uni;
+import io.smallrye.reactive.messaging.kafka.IncomingKafkaRecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Subscriber processing up to {@code maxInFlight} Kafka messages concurrently.
+ * <p>
+ * Messages with the same key are processed one after the other, in order. Messages without a key are ordered per
+ * partition. A message is acknowledged, or nacked when its processing failed, only once all the earlier messages of its
+ * partition are done, so that the committed offset never skips a message still in progress. A message counts as in
+ * flight until it is acknowledged.
+ */
+public class OrderedConcurrentSubscriber<T> implements Subscriber<Message<T>> {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderedConcurrentSubscriber.class);
+
+    private static final Object NO_PARTITION = new Object();
+
+    private final int maxInFlight;
+
+    private final Function<Message<T>, Uni<Void>> handler;
+
+    // messages per key, the first one is being processed, guarded by this
+    private final Map<Object, ArrayDeque<Entry<T>>> lanes = new HashMap<>();
+
+    // messages per partition, in the order they were received, guarded by this
+    private final Map<Object, ArrayDeque<Entry<T>>> partitions = new HashMap<>();
+
+    private volatile Subscription subscription;
+
+    public OrderedConcurrentSubscriber(int maxInFlight, Function<Message<T>, Uni<Void>> handler) {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be greater than 0");
+        }
+        this.maxInFlight = maxInFlight;
+        this.handler = handler;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        subscription = s;
+        s.request(maxInFlight);
+    }
+
+    @Override
+    public void onNext(Message<T> message) {
+        Entry<T> entry = entry(message);
+        boolean idle;
+        synchronized (this) {
+            partitions.computeIfAbsent(entry.partition, p -> new ArrayDeque<>()).add(entry);
+            ArrayDeque<Entry<T>> lane = lanes.computeIfAbsent(entry.key, k -> new ArrayDeque<>());
+            lane.add(entry);
+            idle = lane.size() == 1;
+        }
+        if (idle) {
+            process(entry);
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        log.error("Error in the incoming stream", t);
+    }
+
+    @Override
+    public void onComplete() {
+        log.debug("Incoming stream completed");
+    }
+
+    /**
+     * @return the number of messages received and not acknowledged yet
+     */
+    public synchronized int inFlight() {
+        return partitions.values().stream().mapToInt(ArrayDeque::size).sum();
+    }
+
+    private void process(Entry<T> entry) {
+        Uni.createFrom().deferred(() -> handler.apply(entry.message))
+                .subscribe().with(v -> done(entry, null), t -> done(entry, t));
+    }
+
+    private void done(Entry<T> entry, Throwable failure) {
+        Entry<T> next;
+        int acknowledged = 0;
+        synchronized (this) {
+            entry.done = true;
+            entry.failure = failure;
+            ArrayDeque<Entry<T>> lane = lanes.get(entry.key);
+            lane.poll();
+            next = lane.peek();
+            if (next == null) {
+                lanes.remove(entry.key);
+            }
+            // acknowledged in partition order, under the lock so that concurrent completions can't reorder them
+            ArrayDeque<Entry<T>> partition = partitions.get(entry.partition);
+            while (!partition.isEmpty() && partition.peek().done) {
+                Entry<T> head = partition.poll();
+                if (head.failure == null) {
+                    head.message.ack();
+                } else {
+                    log.error("Error processing message", head.failure);
+                    head.message.nack(head.failure);
+                }
+                acknowledged++;
+            }
+            if (partition.isEmpty()) {
+                partitions.remove(entry.partition);
+            }
+        }
+        if (next != null) {
+            process(next);
+        }
+        if (acknowledged > 0) {
+            subscription.request(acknowledged);
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private Entry<T> entry(Message<T> message) {
+        Optional<IncomingKafkaRecordMetadata> metadata = message.getMetadata(IncomingKafkaRecordMetadata.class);
+        if (metadata.isEmpty()) {
+            return new Entry<>(message, NO_PARTITION, NO_PARTITION);
+        }
+        TopicPartition partition = new TopicPartition(metadata.get().getTopic(), metadata.get().getPartition());
+        Object key = metadata.get().getKey();
+        return new Entry<>(message, key == null ? partition : key, partition);
+    }
+
+    private static class Entry<T> {
+
+        private final Message<T> message;
+
+        private final Object key;
+
+        private final Object partition;
+
+        private boolean done;
+
+        private Throwable failure;
+
+        private Entry(Message<T> message, Object key, Object partition) {
+            this.message = message;
+            this.key = key;
+            this.partition = partition;
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.redhat.emergency.response.responder.simulator.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only log of key value pairs in a memory-mapped file of fixed size.
+ * <p>
+ * The file starts with a magic number and a version. Each record is the length of its body, the CRC32 of its body and
+ * the body: a type byte (put or remove), the length of the UTF-8 key, the key and, for a put, the value. An int 0 follows
+ * the last record. When the file is opened the records are read up to the first one which is incomplete or doesn't
+ * match its checksum, the following writes overwrite it.
+ * <p>
+ * The latest put of each key is indexed. Compaction copies these records to a new file which replaces the journal,
+ * it also runs when a write doesn't fit in the file.
+ */
+class Journal implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(Journal.class);
+
+    static final int MAGIC = 0x534A524E;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 8;
+
+    // length and checksum of a record
+    static final int RECORD_HEADER_SIZE = 8;
+
+    private static final byte PUT = 1;
+
+    private static final byte REMOVE = 2;
+
+    private final Path path;
+
+    private final int size;
+
+    private MappedByteBuffer buffer;
+
+    // offset of the latest put record of each key
+    private final Map<String, Integer> index = new HashMap<>();
+
+    // bytes of the records in the index
+    private long live = 0;
+
+    private long compactions = 0;
+
+    /**
+     * Opens the journal at {@code path}, creating a file of {@code size} bytes if it doesn't exist, and reads its
+     * records.
+     *
+     * @throws IllegalStateException if the file isn't a journal
+     */
+    Journal(Path path, int size) throws IOException {
+        this.path = path;
+        this.size = size;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        buffer = map(path, size);
+        if (buffer.getInt(0) == 0) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+        } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException(path + " is not a journal of version " + VERSION);
+        }
+        replay();
+    }
+
+    /**
+     * @return the value of each key in the journal, in the order they were last written
+     */
+    synchronized Map<String, byte[]> entries() {
+        Map<Integer, String> keys = new TreeMap<>();
+        index.forEach((key, offset) -> keys.put(offset, key));
+        Map<String, byte[]> entries = new LinkedHashMap<>(keys.size());
+        keys.forEach((offset, key) -> entries.put(key, value(offset)));
+        return entries;
+    }
+
+    synchronized void putAll(Map<String, byte[]> entries) {
+        entries.forEach((key, value) -> {
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            int offset = append(PUT, keyBytes, value);
+            Integer previous = index.put(key, offset);
+            if (previous != null) {
+                live -= recordSize(previous);
+            }
+            live += recordSize(offset);
+        });
+    }
+
+    synchronized void removeAll(Collection<String> keys) {
+        for (String key : keys) {
+            // the keys which are not in the journal don't need a record
+            if (index.containsKey(key)) {
+                append(REMOVE, key.getBytes(StandardCharsets.UTF_8), new byte[0]);
+                live -= recordSize(index.remove(key));
+            }
+        }
+    }
+
+    /**
+     * Removes all the records.
+     */
+    synchronized void clear() {
+        index.clear();
+        live = 0;
+        buffer.position(HEADER_SIZE);
+        buffer.putInt(HEADER_SIZE, 0);
+    }
+
+    /**
+     * Copies the records of the index to a new file, which replaces the journal.
+     */
+    synchronized void compact() throws IOException {
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        Files.deleteIfExists(compacted);
+        MappedByteBuffer target = map(compacted, size);
+        target.putInt(MAGIC);
+        target.putInt(VERSION);
+        Map<String, Integer> offsets = new HashMap<>(index.size());
+        // in offset order, so the latest writes stay last
+        Map<Integer, String> keys = new TreeMap<>();
+        index.forEach((key, offset) -> keys.put(offset, key));
+        keys.forEach((offset, key) -> {
+            ByteBuffer record = buffer.duplicate();
+            record.position(offset).limit(offset + recordSize(offset));
+            offsets.put(key, target.position());
+            target.put(record);
+        });
+        target.putInt(target.position(), 0);
+        target.force();
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // the previous mapping is released when it is garbage collected
+        int position = target.position();
+        buffer = target;
+        buffer.position(position);
+        index.clear();
+        index.putAll(offsets);
+        compactions++;
+    }
+
+    /**
+     * @return the bytes written to the journal, including the records which are replaced or removed since
+     */
+    synchronized long used() {
+        return buffer.position();
+    }
+
+    /**
+     * @return the bytes of the header and of the latest record of each key, the size of the journal once compacted
+     */
+    synchronized long live() {
+        return HEADER_SIZE + live;
+    }
+
+    synchronized long compactions() {
+        return compactions;
+    }
+
+    synchronized int keys() {
+        return index.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        buffer.force();
+    }
+
+    private int append(byte type, byte[] key, byte[] value) {
+        int bodySize = 1 + Integer.BYTES + key.length + value.length;
+        int recordSize = RECORD_HEADER_SIZE + bodySize;
+        // room for the record and the end marker
+        if (buffer.remaining() < recordSize + Integer.BYTES) {
+            try {
+                compact();
+            } catch (IOException e) {
+                throw new IllegalStateException("Error while compacting journal " + path, e);
+            }
+            if (buffer.remaining() < recordSize + Integer.BYTES) {
+                throw new IllegalStateException("Journal " + path + " is full, " + live() + " bytes are live");
+            }
+        }
+        int offset = buffer.position();
+        ByteBuffer body = buffer.duplicate();
+        body.position(offset + RECORD_HEADER_SIZE);
+        body.put(type).putInt(key.length).put(key).put(value);
+        body.limit(body.position()).position(offset + RECORD_HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        // the end marker is written before the length, so a record is never followed by stale bytes
+        buffer.putInt(offset + recordSize, 0);
+        buffer.putInt(offset + Integer.BYTES, (int) crc.getValue());
+        buffer.putInt(offset, bodySize);
+        buffer.position(offset + recordSize);
+        return offset;
+    }
+
+    private void replay() {
+        int position = HEADER_SIZE;
+        int records = 0;
+        while (position + RECORD_HEADER_SIZE < buffer.capacity()) {
+            int bodySize = buffer.getInt(position);
+            if (bodySize <= 0) {
+                break;
+            }
+            if (bodySize > buffer.capacity() - position - RECORD_HEADER_SIZE || !checksumMatches(position, bodySize)) {
+                log.warn("Ignoring the corrupted end of journal " + path + " at offset " + position);
+                break;
+            }
+            String key = key(position);
+            if (buffer.get(position + RECORD_HEADER_SIZE) == PUT) {
+                Integer previous = index.put(key, position);
+                if (previous != null) {
+                    live -= recordSize(previous);
+                }
+                live += RECORD_HEADER_SIZE + bodySize;
+            } else {
+                Integer previous = index.remove(key);
+                if (previous != null) {
+                    live -= recordSize(previous);
+                }
+            }
+            position += RECORD_HEADER_SIZE + bodySize;
+            records++;
+        }
+        if (position + Integer.BYTES <= buffer.capacity()) {
+            buffer.putInt(position, 0);
+        }
+        buffer.position(position);
+        log.info("Read " + records + " records of journal " + path + ", " + index.size() + " keys");
+    }
+
+    private boolean checksumMatches(int offset, int bodySize) {
+        ByteBuffer body = buffer.duplicate();
+        body.position(offset + RECORD_HEADER_SIZE).limit(offset + RECORD_HEADER_SIZE + bodySize);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return buffer.getInt(offset + Integer.BYTES) == (int) crc.getValue();
+    }
+
+    private int recordSize(int offset) {
+        return RECORD_HEADER_SIZE + buffer.getInt(offset);
+    }
+
+    private String key(int offset) {
+        int keyLength = buffer.getInt(offset + RECORD_HEADER_SIZE + 1);
+        byte[] key = new byte[keyLength];
+        buffer.duplicate().position(offset + RECORD_HEADER_SIZE + 1 + Integer.BYTES).get(key);
+        return new String(key, StandardCharsets.UTF_8);
+    }
+
+    private byte[] value(int offset) {
+        int bodySize = buffer.getInt(offset);
+        int keyLength = buffer.getInt(offset + RECORD_HEADER_SIZE + 1);
+        int valueOffset = RECORD_HEADER_SIZE + 1 + Integer.BYTES + keyLength;
+        byte[] value = new byte[RECORD_HEADER_SIZE + bodySize - valueOffset];
+        buffer.duplicate().position(offset + valueOffset).get(value);
+        return value;
+    }
+
+    private static MappedByteBuffer map(Path path, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size()));
+        }
+    }
+}
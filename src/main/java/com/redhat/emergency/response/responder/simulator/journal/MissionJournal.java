@@ -0,0 +1,158 @@
+package com.redhat.emergency.response.responder.simulator.journal;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import com.redhat.emergency.response.responder.simulator.model.ResponderLocation;
+import com.redhat.emergency.response.responder.simulator.repository.BinaryResponderLocationCodec;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local journal of the missions of this instance, replayed at startup to resume them.
+ * <p>
+ * The missions are written to the journal after they are stored in the repository, in the binary encoding. The journal
+ * is compacted every {@code simulator.journal.compaction-interval} milliseconds when more than half of it is made of
+ * replaced or removed records. Failures of the journal are logged, they don't fail the missions.
+ */
+@ApplicationScoped
+public class MissionJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(MissionJournal.class);
+
+    @ConfigProperty(name = "simulator.journal.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "simulator.journal.path", defaultValue = "data/journal/missions")
+    String path;
+
+    @ConfigProperty(name = "simulator.journal.size", defaultValue = "67108864")
+    int size;
+
+    @ConfigProperty(name = "simulator.journal.compaction-interval", defaultValue = "60000")
+    long compactionInterval;
+
+    @Inject
+    MeterRegistry registry;
+
+    private volatile Journal journal;
+
+    private ScheduledExecutorService compactor;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            journal = new Journal(Paths.get(path), size);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error while opening the mission journal " + path, e);
+        }
+        Gauge.builder("simulator.journal", journal, Journal::used).tag("space", "used").baseUnit("bytes")
+                .description("Bytes written to the mission journal since it was compacted").register(registry);
+        Gauge.builder("simulator.journal", journal, Journal::live).tag("space", "live").baseUnit("bytes")
+                .description("Bytes of the latest state of the missions in the journal").register(registry);
+        FunctionCounter.builder("simulator.journal.compactions", journal, Journal::compactions)
+                .description("Compactions of the mission journal").register(registry);
+        compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "simulator-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(this::compact, compactionInterval, compactionInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void destroy() {
+        if (journal != null) {
+            compactor.shutdownNow();
+            journal.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return journal != null;
+    }
+
+    /**
+     * @return the missions in the journal, by key, or an empty map if the journal is disabled. The missions which can't
+     * be decoded are skipped.
+     */
+    public Map<String, ResponderLocation> replay() {
+        if (journal == null) {
+            return Map.of();
+        }
+        Map<String, ResponderLocation> responderLocations = new LinkedHashMap<>();
+        journal.entries().forEach((key, value) -> {
+            try {
+                responderLocations.put(key, BinaryResponderLocationCodec.INSTANCE.decode(value));
+            } catch (RuntimeException e) {
+                log.error("Error while decoding ResponderLocation " + key + " from the journal", e);
+            }
+        });
+        return responderLocations;
+    }
+
+    public void put(ResponderLocation responderLocation) {
+        putAll(List.of(responderLocation));
+    }
+
+    public void putAll(Collection<ResponderLocation> responderLocations) {
+        if (journal == null || responderLocations.isEmpty()) {
+            return;
+        }
+        Map<String, byte[]> entries = new LinkedHashMap<>(responderLocations.size());
+        responderLocations.forEach(r -> entries.put(r.key(), (byte[]) BinaryResponderLocationCodec.INSTANCE.encode(r)));
+        try {
+            journal.putAll(entries);
+        } catch (RuntimeException e) {
+            log.error("Error while writing " + entries.size() + " ResponderLocations to the journal", e);
+        }
+    }
+
+    public void removeAll(Collection<String> keys) {
+        if (journal == null || keys.isEmpty()) {
+            return;
+        }
+        try {
+            journal.removeAll(keys);
+        } catch (RuntimeException e) {
+            log.error("Error while removing " + keys.size() + " ResponderLocations from the journal", e);
+        }
+    }
+
+    public void clear() {
+        if (journal != null) {
+            journal.clear();
+        }
+    }
+
+    private void compact() {
+        try {
+            long used = journal.used();
+            long live = journal.live();
+            if (live * 2 < used) {
+                journal.compact();
+                log.debug("Compacted the mission journal from " + used + " to " + journal.used() + " bytes");
+            }
+        } catch (Exception e) {
+            log.error("Error while compacting the mission journal", e);
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package com.redhat.emergency.response.responder.simulator.lease;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import com.redhat.emergency.response.responder.simulator.state.StateBackend;
+import com.redhat.emergency.response.responder.simulator.state.StateCache;
+import com.redhat.emergency.response.responder.simulator.state.StateCodec;
+import com.redhat.emergency.response.responder.simulator.state.StateIterator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import io.smallrye.mutiny.Uni;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Leases of the missions handled by this instance, so the missions of an instance which is gone are resumed by another
+ * one.
+ * <p>
+ * A lease is the owner of a mission and the time it expires, stored in the {@code <cache>-leases} cache of the state
+ * backend next to the state of the mission. At startup and every {@code simulator.lease.scan-interval} milliseconds, the
+ * instance renews the leases of its missions for {@code simulator.lease.duration} milliseconds, then scans the leases and
+ * adopts the missions whose lease expired. Renewals and adoptions replace the lease only if it didn't change since it was
+ * read, so a mission is owned by one instance at a time. An instance which loses the lease of a mission stops simulating it.
+ * <p>
+ * The expiry times are compared across instances, their clocks must be synchronized well within the lease duration.
+ */
+@ApplicationScoped
+public class MissionLeases {
+
+    private static final Logger log = LoggerFactory.getLogger(MissionLeases.class);
+
+    private static final char SEPARATOR = '@';
+
+    @ConfigProperty(name = "simulator.lease.enabled", defaultValue = "false")
+    boolean enabled;
+
+    /**
+     * Identifies the instance in its leases, a random id by default.
+     */
+    @ConfigProperty(name = "simulator.lease.owner")
+    Optional<String> owner;
+
+    @ConfigProperty(name = "simulator.lease.duration", defaultValue = "30000")
+    long duration;
+
+    @ConfigProperty(name = "simulator.lease.scan-interval", defaultValue = "10000")
+    long scanInterval;
+
+    @ConfigProperty(name = "simulator.lease.batch-size", defaultValue = "500")
+    int batchSize;
+
+    @ConfigProperty(name = "infinispan.cache.responder-simulator", defaultValue = "responder-simulator")
+    String cacheName;
+
+    @Inject
+    StateBackend stateBackend;
+
+    @Inject
+    MeterRegistry registry;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    private String ownerId;
+
+    // lease written by this instance, for each mission it owns
+    private final Map<String, String> owned = new ConcurrentHashMap<>();
+
+    private volatile StateCache<String, String> cache;
+
+    private volatile Consumer<List<String>> handler;
+
+    private Counter adopted;
+
+    private Counter lost;
+
+    private ScheduledExecutorService scanner;
+
+    @PostConstruct
+    void init() {
+        ownerId = owner.filter(o -> !o.isBlank()).orElseGet(() -> UUID.randomUUID().toString());
+        if (!enabled) {
+            return;
+        }
+        if (scanInterval * 2 > duration) {
+            log.warn("The lease scan interval of " + scanInterval + " ms is more than half the lease duration of " + duration
+                    + " ms, leases may expire before they are renewed");
+        }
+        adopted = Counter.builder("simulator.lease.adopted").description("Missions adopted after their lease expired")
+                .register(registry);
+        lost = Counter.builder("simulator.lease.lost").description("Missions whose lease was taken over by another instance")
+                .register(registry);
+        Gauge.builder("simulator.lease.owned", owned, Map::size).description("Missions leased by this instance")
+                .register(registry);
+    }
+
+    void onStart(@Observes StartupEvent e) {
+        if (!enabled) {
+            return;
+        }
+        log.info("Leasing missions as " + ownerId + " for " + duration + " ms");
+        scanner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "simulator-lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scanner.scheduleWithFixedDelay(this::renewAndScan, 0, scanInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void destroy() {
+        if (scanner != null) {
+            scanner.shutdownNow();
+        }
+    }
+
+    /**
+     * Registers the handler of the missions adopted by a scan, called with batches of at most
+     * {@code simulator.lease.batch-size} keys.
+     */
+    public void onAdopted(Consumer<List<String>> handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * @return true if the instance owns the lease of the mission, always true when the leases are disabled
+     */
+    public boolean owns(String key) {
+        return !enabled || owned.containsKey(key);
+    }
+
+    /**
+     * Takes the lease of a mission, whoever owned it.
+     */
+    public Uni<Void> acquire(String key) {
+        return acquireAll(List.of(key));
+    }
+
+    /**
+     * Takes the leases of the missions, whoever owned them.
+     */
+    public Uni<Void> acquireAll(Collection<String> keys) {
+        if (!enabled || keys.isEmpty()) {
+            return Uni.createFrom().nullItem();
+        }
+        return Uni.createFrom().completionStage(() -> {
+            String lease = lease();
+            Map<String, String> leases = new HashMap<>(keys.size());
+            keys.forEach(key -> leases.put(key, lease));
+            owned.putAll(leases);
+            return getCache().putAllAsync(leases);
+        });
+    }
+
+    /**
+     * Takes the leases of the missions which are not simulated by another instance: the leases which expired, the leases of
+     * this instance and the missing leases. As in a scan, a lease is replaced only if it didn't change since it was read, so
+     * a mission adopted by another instance in the meantime stays with it. Failures are logged, the mission is not taken.
+     *
+     * @return the keys of the missions whose lease was taken, all of them when the leases are disabled
+     */
+    public Uni<List<String>> reclaimAll(Collection<String> keys) {
+        if (!enabled || keys.isEmpty()) {
+            return Uni.createFrom().item(new ArrayList<>(keys));
+        }
+        return Uni.createFrom().completionStage(() -> {
+            long now = clock.getAsLong();
+            String lease = lease();
+            StateCache<String, String> cache = getCache();
+            Map<String, CompletableFuture<Boolean>> claims = new LinkedHashMap<>();
+            for (String key : keys) {
+                claims.put(key, cache.getAsync(key).thenCompose(current -> {
+                    if (current == null) {
+                        return cache.putAsync(key, lease).thenApply(previous -> true);
+                    }
+                    if (expiresAt(current) < now || ownerId.equals(ownerOf(current))) {
+                        return cache.replaceAsync(key, current, lease);
+                    }
+                    return CompletableFuture.completedFuture(false);
+                }).exceptionally(throwable -> {
+                    log.warn("Error while reclaiming the lease of ResponderLocation " + key, throwable);
+                    return false;
+                }));
+            }
+            return CompletableFuture.allOf(claims.values().toArray(CompletableFuture[]::new)).thenApply(unused -> {
+                List<String> reclaimed = new ArrayList<>(claims.size());
+                claims.forEach((key, claim) -> {
+                    if (claim.join()) {
+                        owned.put(key, lease);
+                        reclaimed.add(key);
+                    }
+                });
+                return reclaimed;
+            });
+        });
+    }
+
+    /**
+     * Removes the leases of missions which ended. Failures are logged.
+     */
+    public void release(Collection<String> keys) {
+        if (!enabled) {
+            return;
+        }
+        for (String key : keys) {
+            if (owned.remove(key) != null) {
+                getCache().removeAsync(key).whenComplete((previous, throwable) -> {
+                    if (throwable != null) {
+                        log.error("Error while removing the lease of ResponderLocation " + key, throwable);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Stops renewing the leases of missions the instance can't simulate, they are adopted again once the leases expired.
+     */
+    public void abandon(Collection<String> keys) {
+        keys.forEach(owned::remove);
+    }
+
+    /**
+     * Removes all the leases. Failures are logged.
+     */
+    public void releaseAll() {
+        if (!enabled) {
+            return;
+        }
+        owned.clear();
+        getCache().clearAsync().whenComplete((unused, throwable) -> {
+            if (throwable != null) {
+                log.error("Error while clearing the leases", throwable);
+            }
+        });
+    }
+
+    /**
+     * Extends the leases of the missions of the instance. The missions whose lease was replaced by another instance are
+     * not owned anymore.
+     */
+    CompletableFuture<Void> renew() {
+        String lease = lease();
+        List<CompletableFuture<Boolean>> renewals = new ArrayList<>(owned.size());
+        owned.forEach((key, previous) -> renewals.add(getCache().replaceAsync(key, previous, lease).whenComplete((renewed, throwable) -> {
+            if (throwable != null) {
+                // the lease is renewed on the next scan, or adopted by another instance if it expired in the meantime
+                log.warn("Error while renewing the lease of ResponderLocation " + key, throwable);
+            } else if (renewed) {
+                owned.replace(key, previous, lease);
+            } else if (owned.remove(key, previous)) {
+                lost.increment();
+                log.warn("Lease of ResponderLocation " + key + " was taken over by another instance");
+            }
+        })));
+        return CompletableFuture.allOf(renewals.toArray(CompletableFuture[]::new)).exceptionally(throwable -> null);
+    }
+
+    /**
+     * Takes the expired leases of the missions which are not owned by the instance.
+     *
+     * @return the keys of the adopted missions
+     */
+    List<String> scan() {
+        long now = clock.getAsLong();
+        String lease = lease();
+        Map<String, CompletableFuture<Boolean>> adoptions = new HashMap<>();
+        try (StateIterator<String, String> leases = getCache().entries(batchSize)) {
+            leases.forEachRemaining(entry -> {
+                if (expiresAt(entry.getValue()) < now && !owned.containsKey(entry.getKey())) {
+                    adoptions.put(entry.getKey(), getCache().replaceAsync(entry.getKey(), entry.getValue(), lease));
+                }
+            });
+        }
+        List<String> keys = new ArrayList<>();
+        adoptions.forEach((key, adoption) -> {
+            try {
+                if (adoption.join()) {
+                    owned.put(key, lease);
+                    keys.add(key);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Error while adopting ResponderLocation " + key, e);
+            }
+        });
+        if (!keys.isEmpty()) {
+            adopted.increment(keys.size());
+            log.info("Adopted " + keys.size() + " missions with an expired lease");
+        }
+        return keys;
+    }
+
+    private void renewAndScan() {
+        try {
+            renew().join();
+            Consumer<List<String>> handler = this.handler;
+            if (handler == null) {
+                log.warn("No adoption handler registered, the expired leases are not scanned");
+                return;
+            }
+            List<String> keys = scan();
+            for (int i = 0; i < keys.size(); i += batchSize) {
+                handler.accept(keys.subList(i, Math.min(i + batchSize, keys.size())));
+            }
+        } catch (Exception e) {
+            log.error("Error while renewing and scanning the leases", e);
+        }
+    }
+
+    private String lease() {
+        return ownerId + SEPARATOR + (clock.getAsLong() + duration);
+    }
+
+    private static String ownerOf(String lease) {
+        return lease.substring(0, Math.max(0, lease.lastIndexOf(SEPARATOR)));
+    }
+
+    // a lease which can't be parsed is expired
+    private static long expiresAt(String lease) {
+        try {
+            return Long.parseLong(lease.substring(lease.lastIndexOf(SEPARATOR) + 1));
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private StateCache<String, String> getCache() {
+        StateCache<String, String> cache = this.cache;
+        if (cache == null) {
+            synchronized(this) {
+                if (this.cache == null) {
+                    this.cache = cache = stateBackend.cache(cacheName + "-leases", StateCodec.STRING, StateCodec.STRING);
+                }
+            }
+        }
+        return cache;
+    }
+}
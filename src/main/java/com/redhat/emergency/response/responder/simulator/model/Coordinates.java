@@ -1,42 +1,93 @@
 package com.redhat.emergency.response.responder.simulator.model;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
+/**
+ * Fixed-point coordinates, stored as microdegrees.
+ * <p>
+ * Coordinates with more than 6 decimal places are rounded to the nearest microdegree (about 0.1 m), half up. The JSON
+ * representation is otherwise unchanged: lat and lon are written as decimal numbers without trailing zeros.
+ */
 public class Coordinates {
 
-    private BigDecimal lat;
+    static final int SCALE = 6;
 
-    private BigDecimal lon;
+    static final double MICRODEGREES = 1_000_000.0;
 
-    private Coordinates() {}
+    private final int lat;
 
-    public Coordinates(BigDecimal lat, BigDecimal lon) {
+    private final int lon;
+
+    private Coordinates(int lat, int lon) {
         this.lat = lat;
         this.lon = lon;
     }
 
+    public Coordinates(BigDecimal lat, BigDecimal lon) {
+        this(toMicrodegrees(lat), toMicrodegrees(lon));
+    }
+
+    @JsonCreator
+    public static Coordinates of(@JsonProperty("lat") double lat, @JsonProperty("lon") double lon) {
+        return new Coordinates(toMicrodegrees(lat), toMicrodegrees(lon));
+    }
+
+    public static Coordinates ofMicrodegrees(int lat, int lon) {
+        return new Coordinates(lat, lon);
+    }
+
+    public static int toMicrodegrees(double degrees) {
+        return (int) Math.round(degrees * MICRODEGREES);
+    }
+
+    public static double toDegrees(int microdegrees) {
+        return microdegrees / MICRODEGREES;
+    }
+
     public BigDecimal getLat() {
-        return lat;
+        return toBigDecimal(lat);
     }
 
     @JsonIgnore
     public double getLatD() {
-        return lat.doubleValue();
+        return toDegrees(lat);
+    }
+
+    @JsonIgnore
+    public int getLatE6() {
+        return lat;
     }
 
     public BigDecimal getLon() {
-        return lon;
+        return toBigDecimal(lon);
     }
 
     @JsonIgnore
     public double getLonD() {
-        return lon.doubleValue();
+        return toDegrees(lon);
+    }
+
+    @JsonIgnore
+    public int getLonE6() {
+        return lon;
     }
 
     @Override
     public String toString() {
-        return "[" + lat.toString() + "," + lon.toString() + "]";
+        return "[" + getLat().toString() + "," + getLon().toString() + "]";
+    }
+
+    private static int toMicrodegrees(BigDecimal degrees) {
+        return degrees.movePointRight(SCALE).setScale(0, RoundingMode.HALF_UP).intValueExact();
+    }
+
+    private static BigDecimal toBigDecimal(int microdegrees) {
+        BigDecimal degrees = BigDecimal.valueOf(microdegrees, SCALE).stripTrailingZeros();
+        return degrees.scale() < 0 ? degrees.setScale(0) : degrees;
     }
 }
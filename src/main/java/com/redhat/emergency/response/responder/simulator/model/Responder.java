@@ -0,0 +1,24 @@
+package com.redhat.emergency.response.responder.simulator.model;
+
+/**
+ * The attributes of a responder used by the simulator.
+ */
+public class Responder {
+
+    private final boolean person;
+
+    private final double distanceUnit;
+
+    public Responder(boolean person, double distanceUnit) {
+        this.person = person;
+        this.distanceUnit = distanceUnit;
+    }
+
+    public boolean isPerson() {
+        return person;
+    }
+
+    public double getDistanceUnit() {
+        return distanceUnit;
+    }
+}
@@ -1,7 +1,6 @@
 package com.redhat.emergency.response.responder.simulator.model;
 
-import java.util.Deque;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -19,8 +18,13 @@ public class ResponderLocation {
 
     private String incidentId;
 
-    @JsonProperty
-    private Deque<MissionStep> queue;
+    private Route route;
+
+    // index in the route of the next step
+    private int cursor = 0;
+
+    // position calculated by calculateNextLocation when the next step is too far away, only lives until moveToNextLocation
+    private Coordinates intermediatePosition;
 
     private Coordinates currentPosition;
 
@@ -41,14 +45,25 @@ public class ResponderLocation {
 
     public ResponderLocation(String missionId, String responderId, String incidentId, List<MissionStep> missionSteps,
                              Coordinates currentPosition, boolean person, double distanceUnit) {
+        this(missionId, responderId, incidentId, Route.of(missionSteps), currentPosition, person, distanceUnit, Status.CREATED, false);
+    }
+
+    public ResponderLocation(String missionId, String responderId, String incidentId, List<MissionStep> missionSteps,
+                             Coordinates currentPosition, boolean person, double distanceUnit, Status status, boolean waiting) {
+        this(missionId, responderId, incidentId, Route.of(missionSteps), currentPosition, person, distanceUnit, status, waiting);
+    }
+
+    public ResponderLocation(String missionId, String responderId, String incidentId, Route route,
+                             Coordinates currentPosition, boolean person, double distanceUnit, Status status, boolean waiting) {
         this.missionId = missionId;
         this.responderId = responderId;
         this.incidentId = incidentId;
-        this.queue = new LinkedList<>(missionSteps);
+        this.route = route;
         this.currentPosition = currentPosition;
         this.person = person;
         this.distanceUnit = distanceUnit;
-        this.status = Status.CREATED;
+        this.status = status;
+        this.waiting = waiting;
     }
 
     public Status getStatus() {
@@ -79,60 +94,102 @@ public class ResponderLocation {
         return missionId;
     }
 
+    /**
+     * @return the remaining steps of the route
+     */
+    public List<MissionStep> steps() {
+        List<MissionStep> steps = new ArrayList<>(route.size() - cursor);
+        for (int i = cursor; i < route.size(); i++) {
+            steps.add(route.step(i));
+        }
+        return steps;
+    }
+
+    public Route route() {
+        return route;
+    }
+
+    /**
+     * @return the index in {@link #route()} of the next step
+     */
+    public int cursor() {
+        return cursor;
+    }
+
+    public boolean waiting() {
+        return waiting;
+    }
+
+    public double distanceUnit() {
+        return distanceUnit;
+    }
+
     public void calculateNextLocation() {
         if (isWaiting()) {
             log.debug("ResponderLocation " + missionId + " - Waiting on pickup");
             return;
         }
-        if (queue.isEmpty()) {
+        if (cursor >= route.size()) {
             log.warn("MissionStep queue is empty.");
             return;
         }
-        Coordinates current = currentPosition;
         log.debug("ResponderLocation " + missionId + " - Current location: " + currentPosition);
-        MissionStep step = queue.peek();
-        log.debug("ResponderLocation " + missionId + " - Next location: " + step.getCoordinates());
-        Coordinates destination = step.getCoordinates();
-        double distance = DistanceHelper.calculateDistance(currentPosition, step.getCoordinates());
-        double intermediateDistance = 0.0;
-        log.debug("ResponderLocation " + missionId + " - Distance to next location: " + distance + " meter");
-        while (distance * 1.3 < distanceUnit) {
-            step = queue.peek();
-            if (step.isWayPoint() || step.isDestination()) {
-                break;
+        double toCursor = DistanceHelper.calculateDistance(currentPosition.getLatD(), currentPosition.getLonD(),
+                route.lat(cursor), route.lon(cursor));
+        log.debug("ResponderLocation " + missionId + " - Distance to next location: " + toCursor + " meter");
+        // the responder never moves past a wayPoint or destination, or past the end of the route
+        int last = route.nextStop(cursor);
+        if (last < 0) {
+            last = route.size() - 1;
+        }
+        // first step which is at least distanceUnit away, or the last step we can move to
+        int low = cursor;
+        int high = last;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if ((toCursor + route.distance(cursor, mid)) * 1.3 < distanceUnit) {
+                low = mid + 1;
+            } else {
+                high = mid;
             }
-            step = queue.poll();
-            current = step.getCoordinates();
-            intermediateDistance = distance;
-            log.debug("ResponderLocation " + missionId + " - Moving to next location: " + step.getCoordinates());
-            step = queue.peek();
-            destination = step.getCoordinates();
-            double nextDistance = DistanceHelper.calculateDistance(current, destination);
-            distance = distance + nextDistance;
-            log.debug("ResponderLocation " + missionId + " - Distance to next location: " + distance + " meter");
         }
+        int next = low;
+        double distance = toCursor + route.distance(cursor, next);
+        log.debug("ResponderLocation " + missionId + " - Next location: [" + route.lat(next) + "," + route.lon(next) + "], distance: "
+                + distance + " meter");
         if (distance > distanceUnit * 1.3) {
             log.debug("ResponderLocation " + missionId + " - Adding new intermediate step");
-            Coordinates intermediateCoordinate = DistanceHelper.calculateIntermediateCoordinate(current, destination, distanceUnit - intermediateDistance);
-            log.debug("ResponderLocation " + missionId + " - New step : " + intermediateCoordinate);
-            MissionStep intermediateStep = new MissionStep(intermediateCoordinate, false, false);
-            queue.addFirst(intermediateStep);
+            if (next == cursor) {
+                intermediatePosition = DistanceHelper.calculateIntermediateCoordinate(currentPosition.getLatD(), currentPosition.getLonD(),
+                        route.lat(next), route.lon(next), distanceUnit);
+            } else {
+                intermediatePosition = DistanceHelper.calculateIntermediateCoordinate(route.lat(next - 1), route.lon(next - 1),
+                        route.lat(next), route.lon(next), distanceUnit - (toCursor + route.distance(cursor, next - 1)));
+            }
+            log.debug("ResponderLocation " + missionId + " - New step : " + intermediatePosition);
         }
+        cursor = next;
     }
 
     public void moveToNextLocation() {
-        MissionStep step = queue.poll();
-        if (step == null) {
+        if (intermediatePosition != null) {
+            currentPosition = intermediatePosition;
+            intermediatePosition = null;
+            status = Status.MOVING;
+            return;
+        }
+        if (cursor >= route.size()) {
             log.warn("ResponderLocation " + missionId + " - MissionStep queue is empty");
             return ;
         }
-        currentPosition = step.getCoordinates();
-        if (person && step.isWayPoint()) {
+        int step = cursor++;
+        currentPosition = route.coordinates(step);
+        if (person && route.isWayPoint(step)) {
             this.waiting = true;
             status = Status.WAITING;
-        } else if (step.isWayPoint()) {
+        } else if (route.isWayPoint(step)) {
             status = Status.PICKEDUP;
-        } else if (step.isDestination()) {
+        } else if (route.isDestination(step)) {
             status = Status.DROPPED;
         } else {
             status = Status.MOVING;
@@ -148,4 +205,15 @@ public class ResponderLocation {
         return (person && waiting);
     }
 
+    @JsonProperty("queue")
+    private List<MissionStep> getQueue() {
+        return steps();
+    }
+
+    @JsonProperty("queue")
+    private void setQueue(List<MissionStep> missionSteps) {
+        this.route = Route.of(missionSteps);
+        this.cursor = 0;
+    }
+
 }
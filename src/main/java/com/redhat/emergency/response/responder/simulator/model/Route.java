@@ -0,0 +1,166 @@
+package com.redhat.emergency.response.responder.simulator.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+
+import com.redhat.emergency.response.responder.simulator.DistanceHelper;
+
+/**
+ * Immutable list of mission steps, packed into primitive arrays.
+ * <p>
+ * A route of n steps takes 8 bytes per step for the coordinates (in microdegrees, see {@link Coordinates}) plus two
+ * bit sets for the wayPoint and destination flags, instead of a {@link MissionStep} and a {@link Coordinates} object
+ * per step.
+ * <p>
+ * The route also carries the cumulative distance from its first step to each step, so the distance between any two
+ * steps is a subtraction and the step at a given distance is found with a binary search.
+ */
+public class Route {
+
+    private final int[] lat;
+
+    private final int[] lon;
+
+    private final BitSet wayPoints;
+
+    private final BitSet destinations;
+
+    // wayPoints or destinations
+    private final BitSet stops;
+
+    private final double[] cumulativeDistance;
+
+    private Route(int[] lat, int[] lon, BitSet wayPoints, BitSet destinations, double[] cumulativeDistance) {
+        this.lat = lat;
+        this.lon = lon;
+        this.wayPoints = wayPoints;
+        this.destinations = destinations;
+        this.stops = (BitSet) wayPoints.clone();
+        this.stops.or(destinations);
+        this.cumulativeDistance = cumulativeDistance;
+    }
+
+    public static Route of(Collection<MissionStep> missionSteps) {
+        Builder builder = builder(missionSteps.size());
+        missionSteps.forEach(step -> builder.addMicrodegrees(step.getCoordinates().getLatE6(), step.getCoordinates().getLonE6(),
+                step.isWayPoint(), step.isDestination()));
+        return builder.build();
+    }
+
+    public static Builder builder(int capacity) {
+        return new Builder(capacity);
+    }
+
+    public int size() {
+        return lat.length;
+    }
+
+    public double lat(int index) {
+        return Coordinates.toDegrees(lat[index]);
+    }
+
+    public double lon(int index) {
+        return Coordinates.toDegrees(lon[index]);
+    }
+
+    public int latE6(int index) {
+        return lat[index];
+    }
+
+    public int lonE6(int index) {
+        return lon[index];
+    }
+
+    public boolean isWayPoint(int index) {
+        return wayPoints.get(index);
+    }
+
+    public boolean isDestination(int index) {
+        return destinations.get(index);
+    }
+
+    /**
+     * @return the index of the first wayPoint or destination at or after {@code from}, or -1 if there is none
+     */
+    public int nextStop(int from) {
+        return stops.nextSetBit(from);
+    }
+
+    /**
+     * @return the distance in meter along the route between the steps at index {@code from} and {@code to}
+     */
+    public double distance(int from, int to) {
+        return cumulativeDistance[to] - cumulativeDistance[from];
+    }
+
+    public Coordinates coordinates(int index) {
+        return Coordinates.ofMicrodegrees(lat[index], lon[index]);
+    }
+
+    public MissionStep step(int index) {
+        return new MissionStep(coordinates(index), isWayPoint(index), isDestination(index));
+    }
+
+    public static class Builder {
+
+        private int[] lat;
+
+        private int[] lon;
+
+        private final BitSet wayPoints = new BitSet();
+
+        private final BitSet destinations = new BitSet();
+
+        private double[] cumulativeDistance;
+
+        private boolean measured = true;
+
+        private int size = 0;
+
+        private Builder(int capacity) {
+            lat = new int[Math.max(capacity, 1)];
+            lon = new int[Math.max(capacity, 1)];
+            cumulativeDistance = new double[Math.max(capacity, 1)];
+        }
+
+        public Builder add(double lat, double lon, boolean wayPoint, boolean destination) {
+            return addMicrodegrees(Coordinates.toMicrodegrees(lat), Coordinates.toMicrodegrees(lon), wayPoint, destination);
+        }
+
+        public Builder addMicrodegrees(int lat, int lon, boolean wayPoint, boolean destination) {
+            measured = false;
+            return add(lat, lon, wayPoint, destination, 0.0);
+        }
+
+        /**
+         * Adds a step for which the distance from the previous step is already known, e.g. when restoring a stored route.
+         */
+        public Builder addMicrodegrees(int lat, int lon, boolean wayPoint, boolean destination, double distanceFromPrevious) {
+            return add(lat, lon, wayPoint, destination, size == 0 ? 0.0 : cumulativeDistance[size - 1] + distanceFromPrevious);
+        }
+
+        private Builder add(int lat, int lon, boolean wayPoint, boolean destination, double cumulativeDistance) {
+            if (size == this.lat.length) {
+                this.lat = Arrays.copyOf(this.lat, size * 2);
+                this.lon = Arrays.copyOf(this.lon, size * 2);
+                this.cumulativeDistance = Arrays.copyOf(this.cumulativeDistance, size * 2);
+            }
+            this.cumulativeDistance[size] = cumulativeDistance;
+            this.lat[size] = lat;
+            this.lon[size] = lon;
+            wayPoints.set(size, wayPoint);
+            destinations.set(size, destination);
+            size++;
+            return this;
+        }
+
+        public Route build() {
+            if (!measured) {
+                DistanceHelper.calculateCumulativeDistances(lat, lon, cumulativeDistance, size);
+            }
+            return new Route(Arrays.copyOf(lat, size), Arrays.copyOf(lon, size), wayPoints, destinations,
+                    Arrays.copyOf(cumulativeDistance, size));
+        }
+    }
+}
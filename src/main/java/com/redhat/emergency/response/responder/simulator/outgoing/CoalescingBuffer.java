@@ -0,0 +1,247 @@
+package com.redhat.emergency.response.responder.simulator.outgoing;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Bounded buffer between producers of keyed values and a single, possibly slow, subscriber.
+ * <p>
+ * A value offered for a key which still has an unsent value replaces that value, in place, when the
+ * {@code replaceable} predicate accepts it; otherwise it is queued behind it. Values are delivered in the order their
+ * entry was first queued, and only as requested by the subscriber.
+ * <p>
+ * When a new entry has to be queued and the buffer holds {@code capacity} entries, the overflow policy either drops the
+ * oldest droppable entry or the new value. Values which are not {@code droppable} are never dropped: a value which isn't
+ * droppable evicts the oldest droppable entry whatever the policy, or is queued over capacity when there is none, and a
+ * droppable value is dropped when no entry can make room for it.
+ * <p>
+ * Once the subscriber cancelled, another one may subscribe, and receives the values still in the buffer.
+ */
+public class CoalescingBuffer<K, V> implements Publisher<V> {
+
+    public enum OverflowPolicy {DROP_OLDEST, DROP_NEWEST}
+
+    private final int capacity;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final BiPredicate<V, V> replaceable;
+
+    private final Predicate<V> droppable;
+
+    // guarded by this
+    private final ArrayDeque<Entry<K, V>> queue = new ArrayDeque<>();
+
+    // last queued entry per key, guarded by this
+    private final Map<K, Entry<K, V>> last = new HashMap<>();
+
+    // queued entries with a droppable value, guarded by this
+    private int droppableEntries = 0;
+
+    // subscription of the current subscriber, cleared when it is cancelled
+    private final AtomicReference<BufferSubscription> subscription = new AtomicReference<>();
+
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * @param replaceable tells whether the unsent value (first argument) may be replaced by the new value (second argument)
+     * @param droppable   tells whether the value may be dropped when the buffer is full
+     */
+    public CoalescingBuffer(int capacity, OverflowPolicy overflowPolicy, BiPredicate<V, V> replaceable, Predicate<V> droppable) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be greater than 0");
+        }
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.replaceable = replaceable;
+        this.droppable = droppable;
+    }
+
+    public void offer(K key, V value) {
+        synchronized (this) {
+            Entry<K, V> entry = last.get(key);
+            if (entry != null && replaceable.test(entry.value, value)) {
+                droppableEntries += (droppable.test(value) ? 1 : 0) - (droppable.test(entry.value) ? 1 : 0);
+                entry.value = value;
+                coalesced.increment();
+            } else if (queue.size() >= capacity && droppable.test(value)
+                    && (overflowPolicy == OverflowPolicy.DROP_NEWEST || !dropOldestDroppable())) {
+                dropped.increment();
+            } else {
+                if (queue.size() >= capacity && !droppable.test(value)) {
+                    // queued over capacity when no entry can be dropped
+                    dropOldestDroppable();
+                }
+                entry = new Entry<>(key, value);
+                queue.add(entry);
+                last.put(key, entry);
+                if (droppable.test(value)) {
+                    droppableEntries++;
+                }
+            }
+        }
+        drain();
+    }
+
+    /**
+     * @return the number of values waiting to be delivered, which exceeds the capacity when the buffer is full of values
+     * which can't be dropped
+     */
+    public synchronized int size() {
+        return queue.size();
+    }
+
+    /**
+     * @return the number of values which were replaced by a newer value for the same key before they were delivered
+     */
+    public long coalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @return the number of values which were dropped because the buffer was full
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super V> s) {
+        BufferSubscription subscription = new BufferSubscription(s);
+        if (!this.subscription.compareAndSet(null, subscription)) {
+            s.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            s.onError(new IllegalStateException("CoalescingBuffer allows only one subscriber at a time"));
+            return;
+        }
+        s.onSubscribe(subscription);
+    }
+
+    private synchronized V poll() {
+        Entry<K, V> entry = queue.poll();
+        if (entry == null) {
+            return null;
+        }
+        remove(entry);
+        return entry.value;
+    }
+
+    private void remove(Entry<K, V> entry) {
+        last.remove(entry.key, entry);
+        if (droppable.test(entry.value)) {
+            droppableEntries--;
+        }
+    }
+
+    // guarded by this
+    private boolean dropOldestDroppable() {
+        if (droppableEntries == 0) {
+            return false;
+        }
+        for (Iterator<Entry<K, V>> it = queue.iterator(); it.hasNext(); ) {
+            Entry<K, V> entry = it.next();
+            if (droppable.test(entry.value)) {
+                it.remove();
+                remove(entry);
+                dropped.increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        while (true) {
+            BufferSubscription s = subscription.get();
+            if (s != null && !s.cancelled) {
+                long r = s.requested.get();
+                long emitted = 0;
+                while (emitted != r && !s.cancelled) {
+                    V value = poll();
+                    if (value == null) {
+                        break;
+                    }
+                    s.subscriber.onNext(value);
+                    emitted++;
+                }
+                if (emitted != 0 && r != Long.MAX_VALUE) {
+                    s.requested.addAndGet(-emitted);
+                }
+            }
+            missed = wip.addAndGet(-missed);
+            if (missed == 0) {
+                return;
+            }
+        }
+    }
+
+    private class BufferSubscription implements Subscription {
+
+        private final Subscriber<? super V> subscriber;
+
+        private final AtomicLong requested = new AtomicLong();
+
+        private volatile boolean cancelled = false;
+
+        private BufferSubscription(Subscriber<? super V> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                subscriber.onError(new IllegalArgumentException("Requested " + n + " items, the request must be positive"));
+                return;
+            }
+            requested.getAndUpdate(r -> r + n < 0 ? Long.MAX_VALUE : r + n);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            // a new subscriber may take over the buffered values
+            subscription.compareAndSet(this, null);
+        }
+    }
+
+    private static class Entry<K, V> {
+
+        private final K key;
+
+        private V value;
+
+        private Entry(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
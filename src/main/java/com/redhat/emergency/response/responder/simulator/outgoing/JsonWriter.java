@@ -0,0 +1,206 @@
+package com.redhat.emergency.response.responder.simulator.outgoing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Minimal JSON object writer producing UTF-8 bytes into a reusable buffer.
+ * <p>
+ * The output is identical to what Jackson (and so {@code JsonObject.encode()}) writes for the same fields: strings are
+ * escaped the same way, doubles are written as {@link Double#toString(double)}, and there is no whitespace.
+ * <p>
+ * Not thread safe, meant to be reused by a single thread.
+ */
+class JsonWriter {
+
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+
+    private byte[] buffer;
+
+    private int position;
+
+    private boolean first;
+
+    JsonWriter(int capacity) {
+        buffer = new byte[capacity];
+    }
+
+    JsonWriter startObject() {
+        position = 0;
+        first = true;
+        writeByte('{');
+        return this;
+    }
+
+    byte[] endObject() {
+        writeByte('}');
+        return Arrays.copyOf(buffer, position);
+    }
+
+    JsonWriter field(String name, String value) {
+        name(name);
+        if (value == null) {
+            writeBytes(NULL);
+        } else {
+            writeString(value);
+        }
+        return this;
+    }
+
+    JsonWriter field(String name, boolean value) {
+        name(name);
+        writeBytes(value ? TRUE : FALSE);
+        return this;
+    }
+
+    /**
+     * Writes a coordinate given in microdegrees, as Jackson writes the same value as a double in degrees.
+     */
+    JsonWriter fieldMicrodegrees(String name, int microdegrees) {
+        name(name);
+        // below 0.001 degree Double.toString switches to the computerized scientific notation
+        if (microdegrees > -1000 && microdegrees < 1000) {
+            writeAscii(Double.toString(microdegrees / 1_000_000.0));
+            return this;
+        }
+        long value = microdegrees;
+        if (value < 0) {
+            writeByte('-');
+            value = -value;
+        }
+        writeLong(value / 1_000_000);
+        writeByte('.');
+        int fraction = (int) (value % 1_000_000);
+        if (fraction == 0) {
+            writeByte('0');
+            return this;
+        }
+        int digits = 6;
+        while (fraction % 10 == 0) {
+            fraction /= 10;
+            digits--;
+        }
+        ensureCapacity(digits);
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + fraction % 10);
+            fraction /= 10;
+        }
+        position += digits;
+        return this;
+    }
+
+    private void name(String name) {
+        if (!first) {
+            writeByte(',');
+        }
+        first = false;
+        writeString(name);
+        writeByte(':');
+    }
+
+    private void writeString(String s) {
+        writeByte('"');
+        int start = position;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                // not ASCII, write the string again from its UTF-8 encoding: the non-ASCII characters are written as raw UTF-8 bytes,
+                // which are all above 0x7F and never need escaping, the ASCII ones are escaped as usual
+                position = start;
+                for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+                    if (b < 0) {
+                        writeByte(b);
+                    } else {
+                        writeChar((char) b);
+                    }
+                }
+                break;
+            }
+            writeChar(c);
+        }
+        writeByte('"');
+    }
+
+    private void writeChar(char c) {
+        if (c >= 0x20 && c != '"' && c != '\\') {
+            writeByte(c);
+            return;
+        }
+        ensureCapacity(6);
+        buffer[position++] = '\\';
+        switch (c) {
+            case '"':
+            case '\\':
+                buffer[position++] = (byte) c;
+                break;
+            case '\b':
+                buffer[position++] = 'b';
+                break;
+            case '\t':
+                buffer[position++] = 't';
+                break;
+            case '\n':
+                buffer[position++] = 'n';
+                break;
+            case '\f':
+                buffer[position++] = 'f';
+                break;
+            case '\r':
+                buffer[position++] = 'r';
+                break;
+            default:
+                buffer[position++] = 'u';
+                buffer[position++] = '0';
+                buffer[position++] = '0';
+                buffer[position++] = HEX[c >> 4];
+                buffer[position++] = HEX[c & 0xF];
+        }
+    }
+
+    private void writeLong(long value) {
+        if (value == 0) {
+            writeByte('0');
+            return;
+        }
+        int digits = 0;
+        for (long v = value; v > 0; v /= 10) {
+            digits++;
+        }
+        ensureCapacity(digits);
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += digits;
+    }
+
+    private void writeAscii(String s) {
+        ensureCapacity(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            buffer[position++] = (byte) s.charAt(i);
+        }
+    }
+
+    private void writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void writeByte(int b) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) b;
+    }
+
+    private void ensureCapacity(int length) {
+        if (position + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+        }
+    }
+}
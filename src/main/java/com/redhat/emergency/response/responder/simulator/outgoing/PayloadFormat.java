@@ -0,0 +1,30 @@
+package com.redhat.emergency.response.responder.simulator.outgoing;
+
+import java.util.Locale;
+
+/**
+ * Encoding of the ResponderLocationUpdatedEvent payloads, set with {@code simulator.outgoing.payload-format}.
+ */
+public enum PayloadFormat {
+
+    JSON("application/json"),
+
+    /**
+     * Protocol Buffers, see {@code proto/responder-location-update.proto}.
+     */
+    PROTOBUF("application/protobuf");
+
+    private final String contentType;
+
+    PayloadFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public static PayloadFormat of(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+}
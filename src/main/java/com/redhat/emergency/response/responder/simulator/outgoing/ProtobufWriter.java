@@ -0,0 +1,109 @@
+package com.redhat.emergency.response.responder.simulator.outgoing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Minimal Protocol Buffers message writer producing the wire format into a reusable buffer.
+ * <p>
+ * Fields holding the default value (null or empty strings, 0, false) are not written, as proto3 does.
+ * <p>
+ * Not thread safe, meant to be reused by a single thread.
+ */
+class ProtobufWriter {
+
+    private static final int VARINT = 0;
+
+    private static final int LENGTH_DELIMITED = 2;
+
+    private byte[] buffer;
+
+    private int position;
+
+    ProtobufWriter(int capacity) {
+        buffer = new byte[capacity];
+    }
+
+    ProtobufWriter startMessage() {
+        position = 0;
+        return this;
+    }
+
+    byte[] endMessage() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    ProtobufWriter field(int number, String value) {
+        if (value == null || value.isEmpty()) {
+            return this;
+        }
+        tag(number, LENGTH_DELIMITED);
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeVarint(bytes.length);
+                ensureCapacity(bytes.length);
+                System.arraycopy(bytes, 0, buffer, position, bytes.length);
+                position += bytes.length;
+                return this;
+            }
+        }
+        // ASCII, one byte per char
+        writeVarint(value.length());
+        ensureCapacity(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            buffer[position++] = (byte) value.charAt(i);
+        }
+        return this;
+    }
+
+    ProtobufWriter field(int number, boolean value) {
+        if (value) {
+            tag(number, VARINT);
+            writeVarint(1);
+        }
+        return this;
+    }
+
+    /**
+     * Writes an enum field, or an int32 field.
+     */
+    ProtobufWriter fieldEnum(int number, int value) {
+        if (value != 0) {
+            tag(number, VARINT);
+            // negative int32 values take 10 bytes, sign extended
+            writeVarint(value);
+        }
+        return this;
+    }
+
+    /**
+     * Writes a sint32 field, zigzag encoded so that small negative values stay short.
+     */
+    ProtobufWriter fieldSint32(int number, int value) {
+        if (value != 0) {
+            tag(number, VARINT);
+            writeVarint(((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+        }
+        return this;
+    }
+
+    private void tag(int number, int wireType) {
+        writeVarint((long) number << 3 | wireType);
+    }
+
+    private void writeVarint(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void ensureCapacity(int length) {
+        if (position + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.redhat.emergency.response.responder.simulator.outgoing;
+
+import com.redhat.emergency.response.responder.simulator.model.ResponderLocation;
+import io.smallrye.reactive.messaging.ce.OutgoingCloudEventMetadata;
+import io.smallrye.reactive.messaging.kafka.KafkaRecord;
+import org.eclipse.microprofile.reactive.messaging.Message;
+
+/**
+ * Builds the ResponderLocationUpdatedEvent messages sent to the responder-location-update channel.
+ * <p>
+ * The JSON payload is written directly as UTF-8 bytes by a {@link JsonWriter} reused per thread, the Protocol Buffers
+ * payload by a {@link ProtobufWriter}. The CloudEvent metadata only carries the type and the content type of the
+ * payload and is shared by all messages, the connector adds the id and the timestamp ({@code cloud-events-insert-timestamp}).
+ */
+public class ResponderLocationUpdateEvent {
+
+    static final String TYPE = "ResponderLocationUpdatedEvent";
+
+    private static final OutgoingCloudEventMetadata<byte[]> JSON_METADATA = metadata(PayloadFormat.JSON);
+
+    private static final OutgoingCloudEventMetadata<byte[]> PROTOBUF_METADATA = metadata(PayloadFormat.PROTOBUF);
+
+    private static final ThreadLocal<JsonWriter> JSON_WRITER = ThreadLocal.withInitial(() -> new JsonWriter(256));
+
+    private static final ThreadLocal<ProtobufWriter> PROTOBUF_WRITER = ThreadLocal.withInitial(() -> new ProtobufWriter(128));
+
+    public static Message<byte[]> message(String key, ResponderLocation responderLocation, PayloadFormat format) {
+        return KafkaRecord.of(key, payload(responderLocation, format))
+                .addMetadata(format == PayloadFormat.PROTOBUF ? PROTOBUF_METADATA : JSON_METADATA);
+    }
+
+    public static byte[] payload(ResponderLocation rl, PayloadFormat format) {
+        return format == PayloadFormat.PROTOBUF ? protobuf(rl) : payload(rl);
+    }
+
+    public static byte[] payload(ResponderLocation rl) {
+        return JSON_WRITER.get().startObject()
+                .field("responderId", rl.getResponderId())
+                .field("missionId", rl.getMissionId())
+                .field("incidentId", rl.getIncidentId())
+                .field("status", rl.getStatus().name())
+                .fieldMicrodegrees("lat", rl.getCurrentPosition().getLatE6())
+                .fieldMicrodegrees("lon", rl.getCurrentPosition().getLonE6())
+                .field("human", rl.isPerson())
+                .field("continue", rl.getStatus().equals(ResponderLocation.Status.MOVING)
+                        || rl.getStatus().equals(ResponderLocation.Status.PICKEDUP))
+                .endObject();
+    }
+
+    /**
+     * @return the payload as a {@code ResponderLocationUpdate} message of {@code proto/responder-location-update.proto}
+     */
+    public static byte[] protobuf(ResponderLocation rl) {
+        return PROTOBUF_WRITER.get().startMessage()
+                .field(1, rl.getResponderId())
+                .field(2, rl.getMissionId())
+                .field(3, rl.getIncidentId())
+                .fieldEnum(4, status(rl.getStatus()))
+                .fieldSint32(5, rl.getCurrentPosition().getLatE6())
+                .fieldSint32(6, rl.getCurrentPosition().getLonE6())
+                .field(7, rl.isPerson())
+                .field(8, rl.getStatus().equals(ResponderLocation.Status.MOVING)
+                        || rl.getStatus().equals(ResponderLocation.Status.PICKEDUP))
+                .endMessage();
+    }
+
+    private static int status(ResponderLocation.Status status) {
+        switch (status) {
+            case MOVING:
+                return 1;
+            case WAITING:
+                return 2;
+            case PICKEDUP:
+                return 3;
+            case DROPPED:
+                return 4;
+            default:
+                return 0;
+        }
+    }
+
+    private static OutgoingCloudEventMetadata<byte[]> metadata(PayloadFormat format) {
+        return OutgoingCloudEventMetadata.<byte[]>builder().withType(TYPE).withDataContentType(format.contentType()).build();
+    }
+}
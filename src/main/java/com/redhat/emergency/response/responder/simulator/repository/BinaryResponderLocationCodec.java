@@ -0,0 +1,252 @@
+package com.redhat.emergency.response.responder.simulator.repository;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import com.redhat.emergency.response.responder.simulator.model.Coordinates;
+import com.redhat.emergency.response.responder.simulator.model.ResponderLocation;
+import com.redhat.emergency.response.responder.simulator.model.Route;
+
+/**
+ * Stores a {@link ResponderLocation} in a compact binary format.
+ * <p>
+ * Layout (version 3): magic byte, version byte, missionId, responderId, incidentId, status, flags (person, waiting,
+ * has current position), distanceUnit, current position, number of remaining steps, remaining steps. Strings are a
+ * varint length (0 for null) followed by the UTF-8 bytes. Coordinates are zigzag varint microdegrees, the coordinates
+ * of a step are the delta with the previous step. Each step ends with a flag byte (wayPoint, destination) and the
+ * distance in meter from the previous step as a float, so the route does not need to be measured again when decoded.
+ * <p>
+ * Version 2 did not store the distances, version 1 stored each coordinate as a scale byte and a zigzag varint unscaled
+ * value. Both can still be decoded.
+ */
+public class BinaryResponderLocationCodec implements ResponderLocationCodec {
+
+    public static final BinaryResponderLocationCodec INSTANCE = new BinaryResponderLocationCodec();
+
+    static final byte MAGIC = 0x52;
+
+    static final byte VERSION = 3;
+
+    private static final int PERSON = 1;
+
+    private static final int WAITING = 2;
+
+    private static final int HAS_POSITION = 4;
+
+    private static final int WAYPOINT = 1;
+
+    private static final int DESTINATION = 2;
+
+    private static final byte V1_NULL_SCALE = Byte.MIN_VALUE;
+
+    private static final ResponderLocation.Status[] STATUSES = ResponderLocation.Status.values();
+
+    @Override
+    public Object encode(ResponderLocation responderLocation) {
+        Route route = responderLocation.route();
+        int from = responderLocation.cursor();
+        Coordinates currentPosition = responderLocation.getCurrentPosition();
+        Output out = new Output(64 + (route.size() - from) * 9);
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        out.writeString(responderLocation.getMissionId());
+        out.writeString(responderLocation.getResponderId());
+        out.writeString(responderLocation.getIncidentId());
+        out.writeByte(responderLocation.getStatus() == null ? -1 : responderLocation.getStatus().ordinal());
+        out.writeByte((responderLocation.isPerson() ? PERSON : 0) | (responderLocation.waiting() ? WAITING : 0)
+                | (currentPosition != null ? HAS_POSITION : 0));
+        out.writeDouble(responderLocation.distanceUnit());
+        if (currentPosition != null) {
+            out.writeSignedVarInt(currentPosition.getLatE6());
+            out.writeSignedVarInt(currentPosition.getLonE6());
+        }
+        out.writeVarLong(route.size() - from);
+        int lat = 0;
+        int lon = 0;
+        for (int i = from; i < route.size(); i++) {
+            out.writeSignedVarInt(route.latE6(i) - lat);
+            out.writeSignedVarInt(route.lonE6(i) - lon);
+            out.writeByte((route.isWayPoint(i) ? WAYPOINT : 0) | (route.isDestination(i) ? DESTINATION : 0));
+            out.writeFloat(i == from ? 0.0f : (float) route.distance(i - 1, i));
+            lat = route.latE6(i);
+            lon = route.lonE6(i);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public ResponderLocation decode(Object value) {
+        ByteBuffer in = ByteBuffer.wrap((byte[]) value);
+        if (in.get() != MAGIC) {
+            throw new IllegalArgumentException("Value is not a binary encoded ResponderLocation");
+        }
+        byte version = in.get();
+        if (version == 1) {
+            return decodeV1(in);
+        }
+        if (version != 2 && version != VERSION) {
+            throw new IllegalArgumentException("Unsupported ResponderLocation encoding version " + version);
+        }
+        String missionId = readString(in);
+        String responderId = readString(in);
+        String incidentId = readString(in);
+        byte status = in.get();
+        byte flags = in.get();
+        double distanceUnit = in.getDouble();
+        Coordinates currentPosition = null;
+        if ((flags & HAS_POSITION) != 0) {
+            int positionLat = readSignedVarInt(in);
+            currentPosition = Coordinates.ofMicrodegrees(positionLat, readSignedVarInt(in));
+        }
+        int size = (int) readVarLong(in);
+        Route.Builder route = Route.builder(size);
+        int lat = 0;
+        int lon = 0;
+        for (int i = 0; i < size; i++) {
+            lat += readSignedVarInt(in);
+            lon += readSignedVarInt(in);
+            byte stepFlags = in.get();
+            if (version == 2) {
+                route.addMicrodegrees(lat, lon, (stepFlags & WAYPOINT) != 0, (stepFlags & DESTINATION) != 0);
+            } else {
+                route.addMicrodegrees(lat, lon, (stepFlags & WAYPOINT) != 0, (stepFlags & DESTINATION) != 0, in.getFloat());
+            }
+        }
+        return new ResponderLocation(missionId, responderId, incidentId, route.build(), currentPosition, (flags & PERSON) != 0,
+                distanceUnit, status < 0 ? null : STATUSES[status], (flags & WAITING) != 0);
+    }
+
+    @Override
+    public boolean canDecode(Object value) {
+        return value instanceof byte[] && ((byte[]) value).length > 1 && ((byte[]) value)[0] == MAGIC;
+    }
+
+    private ResponderLocation decodeV1(ByteBuffer in) {
+        String missionId = readString(in);
+        String responderId = readString(in);
+        String incidentId = readString(in);
+        byte status = in.get();
+        byte flags = in.get();
+        double distanceUnit = in.getDouble();
+        Coordinates currentPosition = readCoordinatesV1(in);
+        int size = (int) readVarLong(in);
+        Route.Builder route = Route.builder(size);
+        for (int i = 0; i < size; i++) {
+            Coordinates coordinates = readCoordinatesV1(in);
+            byte stepFlags = in.get();
+            route.addMicrodegrees(coordinates.getLatE6(), coordinates.getLonE6(), (stepFlags & WAYPOINT) != 0, (stepFlags & DESTINATION) != 0);
+        }
+        return new ResponderLocation(missionId, responderId, incidentId, route.build(), currentPosition, (flags & PERSON) != 0,
+                distanceUnit, status < 0 ? null : STATUSES[status], (flags & WAITING) != 0);
+    }
+
+    private static Coordinates readCoordinatesV1(ByteBuffer in) {
+        int latScale = in.get();
+        if (latScale == V1_NULL_SCALE) {
+            return null;
+        }
+        BigDecimal lat = BigDecimal.valueOf(zigZagDecode(readVarLong(in)), latScale);
+        int lonScale = in.get();
+        BigDecimal lon = BigDecimal.valueOf(zigZagDecode(readVarLong(in)), lonScale);
+        return new Coordinates(lat, lon);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = (int) readVarLong(in);
+        if (length == 0) {
+            return null;
+        }
+        String s = new String(in.array(), in.position(), length - 1, StandardCharsets.UTF_8);
+        in.position(in.position() + length - 1);
+        return s;
+    }
+
+    private static int readSignedVarInt(ByteBuffer in) {
+        return (int) zigZagDecode(readVarLong(in));
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static long zigZagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static class Output {
+
+        private byte[] buffer;
+
+        private int position = 0;
+
+        Output(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        void writeByte(int b) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) b;
+        }
+
+        void writeDouble(double d) {
+            long bits = Double.doubleToRawLongBits(d);
+            ensureCapacity(8);
+            for (int i = 56; i >= 0; i -= 8) {
+                buffer[position++] = (byte) (bits >>> i);
+            }
+        }
+
+        void writeFloat(float f) {
+            int bits = Float.floatToRawIntBits(f);
+            ensureCapacity(4);
+            for (int i = 24; i >= 0; i -= 8) {
+                buffer[position++] = (byte) (bits >>> i);
+            }
+        }
+
+        void writeSignedVarInt(int value) {
+            writeVarLong(((long) value << 1) ^ ((long) value >> 63));
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeString(String s) {
+            if (s == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensureCapacity(int length) {
+            if (position + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + length));
+            }
+        }
+    }
+}
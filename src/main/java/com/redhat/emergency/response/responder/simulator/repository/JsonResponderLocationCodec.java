@@ -0,0 +1,27 @@
+package com.redhat.emergency.response.responder.simulator.repository;
+
+import com.redhat.emergency.response.responder.simulator.model.ResponderLocation;
+import io.vertx.core.json.Json;
+
+/**
+ * Stores a {@link ResponderLocation} as a JSON string.
+ */
+public class JsonResponderLocationCodec implements ResponderLocationCodec {
+
+    public static final JsonResponderLocationCodec INSTANCE = new JsonResponderLocationCodec();
+
+    @Override
+    public Object encode(ResponderLocation responderLocation) {
+        return Json.encode(responderLocation);
+    }
+
+    @Override
+    public ResponderLocation decode(Object value) {
+        return Json.decodeValue((String) value, ResponderLocation.class);
+    }
+
+    @Override
+    public boolean canDecode(Object value) {
+        return value instanceof String;
+    }
+}
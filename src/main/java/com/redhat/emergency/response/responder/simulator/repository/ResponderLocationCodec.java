@@ -0,0 +1,19 @@
+package com.redhat.emergency.response.responder.simulator.repository;
+
+import com.redhat.emergency.response.responder.simulator.model.ResponderLocation;
+
+/**
+ * Encodes the state of a {@link ResponderLocation} into a value which can be stored in the responder-simulator cache.
+ */
+public interface ResponderLocationCodec {
+
+    Object encode(ResponderLocation responderLocation);
+
+    ResponderLocation decode(Object value);
+
+    /**
+     * @return true if the value was produced by this codec
+     */
+    boolean canDecode(Object value);
+
+}
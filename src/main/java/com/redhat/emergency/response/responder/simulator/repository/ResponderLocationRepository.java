@@ -1,25 +1,52 @@
 package com.redhat.emergency.response.responder.simulator.repository;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 
-import com.redhat.emergency.response.responder.simulator.infinispan.Configuration;
 import com.redhat.emergency.response.responder.simulator.model.ResponderLocation;
+import com.redhat.emergency.response.responder.simulator.state.StateBackend;
+import com.redhat.emergency.response.responder.simulator.state.StateCache;
+import com.redhat.emergency.response.responder.simulator.state.StateCodec;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.quarkus.runtime.StartupEvent;
 import io.smallrye.mutiny.Uni;
 import io.smallrye.mutiny.infrastructure.Infrastructure;
-import io.vertx.core.json.Json;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
-import org.infinispan.client.hotrod.RemoteCache;
-import org.infinispan.client.hotrod.RemoteCacheManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 @ApplicationScoped
 public class ResponderLocationRepository {
 
-    private static final Logger log = LoggerFactory.getLogger(ResponderLocationRepository.class);
+    // the encoded entries are either JSON strings or binary, tagged for the backends which store bytes
+    private static final StateCodec<Object> VALUE_CODEC = new StateCodec<>() {
+        @Override
+        public byte[] encode(Object value) {
+            byte[] bytes = value instanceof byte[] ? (byte[]) value : ((String) value).getBytes(StandardCharsets.UTF_8);
+            byte[] tagged = new byte[bytes.length + 1];
+            tagged[0] = value instanceof byte[] ? (byte) 1 : (byte) 0;
+            System.arraycopy(bytes, 0, tagged, 1, bytes.length);
+            return tagged;
+        }
+
+        @Override
+        public Object decode(byte[] bytes) {
+            byte[] value = Arrays.copyOfRange(bytes, 1, bytes.length);
+            return bytes[0] == 1 ? value : new String(value, StandardCharsets.UTF_8);
+        }
+    };
 
     @ConfigProperty(name = "infinispan.cache.responder-simulator", defaultValue = "responder-simulator")
     String cacheName;
@@ -27,44 +54,123 @@ public class ResponderLocationRepository {
     @ConfigProperty(name = "infinispan.cache.create.lazy", defaultValue = "false")
     boolean lazy;
 
+    /**
+     * Encoding of new and updated entries, either json or binary. Entries are always decoded according to the
+     * encoding they were written with, so the encoding can be changed on a populated cache.
+     */
+    @ConfigProperty(name = "infinispan.cache.responder-simulator.encoding", defaultValue = "json")
+    String encoding;
+
     @Inject
-    RemoteCacheManager cacheManager;
+    StateBackend stateBackend;
+
+    @Inject
+    MeterRegistry registry;
+
+    volatile StateCache<String, Object> cache;
 
-    volatile RemoteCache<String, String> cache;
+    private ResponderLocationCodec codec;
+
+    @PostConstruct
+    void init() {
+        if ("binary".equalsIgnoreCase(encoding)) {
+            codec = BinaryResponderLocationCodec.INSTANCE;
+        } else if ("json".equalsIgnoreCase(encoding)) {
+            codec = JsonResponderLocationCodec.INSTANCE;
+        } else {
+            throw new IllegalArgumentException("Unsupported encoding '" + encoding + "' for cache " + cacheName);
+        }
+    }
 
     void onStart(@Observes StartupEvent e) {
-        // do not initialize the cache at startup when remote cache is not available, e.g. in QuarkusTests
+        // do not initialize the cache at startup when the state backend is not available, e.g. in QuarkusTests
         if (!lazy) {
             cache = initCache();
         }
     }
 
-    public String put(ResponderLocation responderLocation) {
-        getCache().put(responderLocation.key(), Json.encode(responderLocation));
-        return responderLocation.key();
+    public Uni<String> put(ResponderLocation responderLocation) {
+        return timed("put", () -> Uni.createFrom().completionStage(() -> getCache().putAsync(responderLocation.key(), codec.encode(responderLocation)))
+                .onItem().transform(previous -> responderLocation.key()));
+    }
+
+    public Uni<ResponderLocation> get(String key) {
+        return timed("get", () -> Uni.createFrom().completionStage(() -> getCache().getAsync(key))
+                .onItem().ifNotNull().transform(this::decode));
+    }
+
+    public Uni<Map<String, ResponderLocation>> getAll(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return Uni.createFrom().item(new HashMap<>());
+        }
+        // the state backends have no async bulk get, keep it off the caller thread
+        return timed("getAll", () -> Uni.createFrom().item(() -> {
+            Map<String, Object> entries = getCache().getAll(new HashSet<>(keys));
+            Map<String, ResponderLocation> responderLocations = new HashMap<>(entries.size());
+            entries.forEach((key, value) -> responderLocations.put(key, decode(value)));
+            return responderLocations;
+        }).runSubscriptionOn(Infrastructure.getDefaultWorkerPool()));
+    }
+
+    public Uni<Void> putAll(Collection<ResponderLocation> responderLocations) {
+        if (responderLocations.isEmpty()) {
+            return Uni.createFrom().nullItem();
+        }
+        return timed("putAll", () -> Uni.createFrom().completionStage(() -> getCache().putAllAsync(responderLocations.stream()
+                .collect(Collectors.toMap(ResponderLocation::key, codec::encode, (r1, r2) -> r2)))));
+    }
+
+    public Uni<Void> remove(String key) {
+        return timed("remove", () -> Uni.createFrom().completionStage(() -> getCache().removeAsync(key)).onItem().transform(previous -> null));
     }
 
-    public ResponderLocation get(String key) {
-        String s = getCache().get(key);
-        if (s == null) {
-            return null;
+    public Uni<Void> removeAll(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return Uni.createFrom().nullItem();
         }
-        return Json.decodeValue(s, ResponderLocation.class);
+        // Hot Rod has no bulk remove, pipeline the removes instead of waiting for each of them in turn
+        return timed("removeAll", () -> Uni.createFrom().completionStage(() -> {
+            StateCache<String, Object> cache = getCache();
+            return CompletableFuture.allOf(keys.stream().map(cache::removeAsync).toArray(CompletableFuture[]::new));
+        }));
     }
 
     public Uni<Void> clear() {
-        return Uni.createFrom().<Void>item(() -> {
-            getCache().clear();
-            return null;
-        }).runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+        return timed("clear", () -> Uni.createFrom().completionStage(() -> getCache().clearAsync()));
     }
 
-    public void remove(String key) {
-        getCache().remove(key);
+    /**
+     * @return true if the stored missions outlive the instance, i.e. the repository is the reference for the state of the
+     * missions after a restart
+     */
+    public boolean isDurable() {
+        return stateBackend.isDurable();
+    }
+
+    /**
+     * Records the latency of the operation, from subscription to item or failure, in the {@code simulator.repository} timer.
+     */
+    private <T> Uni<T> timed(String operation, Supplier<Uni<T>> operationSupplier) {
+        return Uni.createFrom().deferred(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            return operationSupplier.get().onItemOrFailure().invoke((item, failure) -> sample.stop(registry.timer("simulator.repository",
+                    "operation", operation, "outcome", failure == null ? "success" : "failure")));
+        });
+    }
+
+    private ResponderLocation decode(Object value) {
+        if (codec.canDecode(value)) {
+            return codec.decode(value);
+        }
+        // entry written with the other encoding, it is migrated the next time it is stored
+        if (BinaryResponderLocationCodec.INSTANCE.canDecode(value)) {
+            return BinaryResponderLocationCodec.INSTANCE.decode(value);
+        }
+        return JsonResponderLocationCodec.INSTANCE.decode(value);
     }
 
-    private RemoteCache<String, String> getCache() {
-        RemoteCache<String, String> cache = this.cache;
+    private StateCache<String, Object> getCache() {
+        StateCache<String, Object> cache = this.cache;
         if (cache == null) {
             synchronized(this) {
                 if (this.cache == null) {
@@ -75,10 +181,8 @@ public class ResponderLocationRepository {
         return cache;
     }
 
-    private RemoteCache<String, String> initCache() {
-        log.info("Creating remote cache '" + cacheName + "'");
-        Configuration configuration = Configuration.builder().name(cacheName).mode("SYNC").owners(2).build();
-        return cacheManager.administration().getOrCreateCache(cacheName, configuration);
+    private StateCache<String, Object> initCache() {
+        return stateBackend.cache(cacheName, StateCodec.STRING, VALUE_CODEC);
     }
 
 }
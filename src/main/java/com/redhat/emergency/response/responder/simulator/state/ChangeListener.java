@@ -0,0 +1,18 @@
+package com.redhat.emergency.response.responder.simulator.state;
+
+/**
+ * Notified of the changes of a {@link StateCache} made by other instances. The values written by this instance aren't
+ * notified, its removals may be. Backends which aren't shared with other instances don't notify their listeners.
+ */
+public interface ChangeListener<K> {
+
+    /**
+     * The entry was created, modified, removed or expired.
+     */
+    void changed(K key);
+
+    /**
+     * Any entry may have changed, e.g. because notifications were missed.
+     */
+    void changedAll();
+}
@@ -0,0 +1,26 @@
+package com.redhat.emergency.response.responder.simulator.state;
+
+/**
+ * Stores the state of the simulator, i.e. the missions and the responder store, in named caches. The backend is selected with
+ * {@code simulator.state.backend}.
+ */
+public interface StateBackend {
+
+    /**
+     * Gets or creates a cache.
+     *
+     * @param keyCodec   serializes the keys, for the backends which store them as bytes
+     * @param valueCodec serializes the values, for the backends which store them as bytes
+     */
+    <K, V> StateCache<K, V> cache(String name, StateCodec<K> keyCodec, StateCodec<V> valueCodec);
+
+    /**
+     * @return true if the state outlives the instance, which then finds it again when it restarts
+     */
+    boolean isDurable();
+
+    /**
+     * Releases the resources of the backend, the caches can't be used afterwards.
+     */
+    void close();
+}
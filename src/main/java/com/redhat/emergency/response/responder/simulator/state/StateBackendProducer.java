@@ -0,0 +1,58 @@
+package com.redhat.emergency.response.responder.simulator.state;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Disposes;
+import javax.enterprise.inject.Instance;
+import javax.enterprise.inject.Produces;
+import javax.inject.Inject;
+
+import com.redhat.emergency.response.responder.simulator.state.hotrod.HotRodStateBackend;
+import com.redhat.emergency.response.responder.simulator.state.offheap.OffHeapStateBackend;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+@ApplicationScoped
+public class StateBackendProducer {
+
+    private static final Logger log = LoggerFactory.getLogger(StateBackendProducer.class);
+
+    /**
+     * Either hotrod, to store the state in an Infinispan server shared by all the instances, or offheap, to store it in the
+     * process for a single instance.
+     */
+    @ConfigProperty(name = "simulator.state.backend", defaultValue = "hotrod")
+    String backend;
+
+    @ConfigProperty(name = "simulator.state.offheap.slab-size", defaultValue = "1048576")
+    int slabSize;
+
+    @ConfigProperty(name = "simulator.state.offheap.max-size", defaultValue = "1073741824")
+    long maxSize;
+
+    // only resolved for the hotrod backend
+    @Inject
+    Instance<RemoteCacheManager> cacheManager;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Produces
+    @ApplicationScoped
+    StateBackend stateBackend() {
+        if ("hotrod".equalsIgnoreCase(backend)) {
+            log.info("Using the Hot Rod state backend");
+            return new HotRodStateBackend(cacheManager.get());
+        } else if ("offheap".equalsIgnoreCase(backend)) {
+            log.info("Using the off-heap state backend, up to " + maxSize + " bytes in slabs of " + slabSize + " bytes");
+            return new OffHeapStateBackend(slabSize, maxSize, registry);
+        }
+        throw new IllegalArgumentException("Unsupported state backend '" + backend + "'");
+    }
+
+    void close(@Disposes StateBackend stateBackend) {
+        stateBackend.close();
+    }
+}
@@ -0,0 +1,53 @@
+package com.redhat.emergency.response.responder.simulator.state;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A cache of a {@link StateBackend}. The blocking operations may be remote calls, callers keep them off the event loop.
+ */
+public interface StateCache<K, V> {
+
+    V get(K key);
+
+    CompletableFuture<V> getAsync(K key);
+
+    /**
+     * @return the entries of the keys which are in the cache
+     */
+    Map<K, V> getAll(Set<? extends K> keys);
+
+    /**
+     * @return the previous value, or null. Backends may not return the previous value.
+     */
+    CompletableFuture<V> putAsync(K key, V value);
+
+    void putAll(Map<? extends K, ? extends V> entries);
+
+    CompletableFuture<Void> putAllAsync(Map<? extends K, ? extends V> entries);
+
+    /**
+     * @return the previous value, or null. Backends may not return the previous value.
+     */
+    CompletableFuture<V> removeAsync(K key);
+
+    /**
+     * Replaces the value of the key with {@code value} if its current value is {@code expected}, atomically.
+     *
+     * @return true if the value was replaced
+     */
+    CompletableFuture<Boolean> replaceAsync(K key, V expected, V value);
+
+    CompletableFuture<Void> clearAsync();
+
+    int size();
+
+    /**
+     * Iterates over the entries, which are not ordered, fetching them in chunks of {@code batchSize} entries from remote
+     * backends.
+     */
+    StateIterator<K, V> entries(int batchSize);
+
+    void addChangeListener(ChangeListener<K> listener);
+}
@@ -0,0 +1,37 @@
+package com.redhat.emergency.response.responder.simulator.state;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serializes the keys or values of a {@link StateCache} for the backends which store them as bytes.
+ */
+public interface StateCodec<T> {
+
+    StateCodec<byte[]> BYTES = new StateCodec<>() {
+        @Override
+        public byte[] encode(byte[] value) {
+            return value;
+        }
+
+        @Override
+        public byte[] decode(byte[] bytes) {
+            return bytes;
+        }
+    };
+
+    StateCodec<String> STRING = new StateCodec<>() {
+        @Override
+        public byte[] encode(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    byte[] encode(T value);
+
+    T decode(byte[] bytes);
+}
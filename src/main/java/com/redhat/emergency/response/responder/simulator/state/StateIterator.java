@@ -0,0 +1,13 @@
+package com.redhat.emergency.response.responder.simulator.state;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Iterates over the entries of a {@link StateCache}, must be closed after use.
+ */
+public interface StateIterator<K, V> extends Iterator<Map.Entry<K, V>>, AutoCloseable {
+
+    @Override
+    void close();
+}
@@ -0,0 +1,61 @@
+package com.redhat.emergency.response.responder.simulator.state.hotrod;
+
+import com.redhat.emergency.response.responder.simulator.state.ChangeListener;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryCreated;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryExpired;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryModified;
+import org.infinispan.client.hotrod.annotation.ClientCacheEntryRemoved;
+import org.infinispan.client.hotrod.annotation.ClientCacheFailover;
+import org.infinispan.client.hotrod.annotation.ClientListener;
+import org.infinispan.client.hotrod.event.ClientCacheEntryCreatedEvent;
+import org.infinispan.client.hotrod.event.ClientCacheEntryExpiredEvent;
+import org.infinispan.client.hotrod.event.ClientCacheEntryModifiedEvent;
+import org.infinispan.client.hotrod.event.ClientCacheEntryRemovedEvent;
+import org.infinispan.client.hotrod.event.ClientCacheFailoverEvent;
+
+/**
+ * Forwards the events of the remote cache for the changes made by other instances to a {@link ChangeListener}, skipping the
+ * events of the values written by this instance. The removals made by this instance are forwarded as well. On failover any
+ * entry may have changed, as events may have been missed.
+ */
+@ClientListener
+public class HotRodChangeListener<K> {
+
+    private final ChangeListener<K> listener;
+
+    final OwnWrites<K> ownWrites = new OwnWrites<>();
+
+    HotRodChangeListener(ChangeListener<K> listener) {
+        this.listener = listener;
+    }
+
+    @ClientCacheEntryCreated
+    public void created(ClientCacheEntryCreatedEvent<K> event) {
+        if (!ownWrites.received(event.getKey())) {
+            listener.changed(event.getKey());
+        }
+    }
+
+    @ClientCacheEntryModified
+    public void modified(ClientCacheEntryModifiedEvent<K> event) {
+        if (!ownWrites.received(event.getKey())) {
+            listener.changed(event.getKey());
+        }
+    }
+
+    @ClientCacheEntryRemoved
+    public void removed(ClientCacheEntryRemovedEvent<K> event) {
+        listener.changed(event.getKey());
+    }
+
+    @ClientCacheEntryExpired
+    public void expired(ClientCacheEntryExpiredEvent<K> event) {
+        listener.changed(event.getKey());
+    }
+
+    @ClientCacheFailover
+    public void failover(ClientCacheFailoverEvent event) {
+        ownWrites.clear();
+        listener.changedAll();
+    }
+}
@@ -0,0 +1,49 @@
+package com.redhat.emergency.response.responder.simulator.state.hotrod;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.redhat.emergency.response.responder.simulator.infinispan.Configuration;
+import com.redhat.emergency.response.responder.simulator.state.StateBackend;
+import com.redhat.emergency.response.responder.simulator.state.StateCache;
+import com.redhat.emergency.response.responder.simulator.state.StateCodec;
+import org.infinispan.client.hotrod.RemoteCacheManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores the state in distributed caches of an Infinispan server, shared by all the instances. The keys and values are
+ * marshalled by the Hot Rod client, the codecs are not used.
+ */
+public class HotRodStateBackend implements StateBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(HotRodStateBackend.class);
+
+    private final RemoteCacheManager cacheManager;
+
+    private final List<HotRodStateCache<?, ?>> caches = new CopyOnWriteArrayList<>();
+
+    public HotRodStateBackend(RemoteCacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public <K, V> StateCache<K, V> cache(String name, StateCodec<K> keyCodec, StateCodec<V> valueCodec) {
+        log.info("Creating remote cache '" + name + "'");
+        Configuration configuration = Configuration.builder().name(name).mode("SYNC").owners(2).build();
+        HotRodStateCache<K, V> cache = new HotRodStateCache<>(cacheManager.administration().getOrCreateCache(name, configuration));
+        caches.add(cache);
+        return cache;
+    }
+
+    @Override
+    public boolean isDurable() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        // the cache manager is closed by Quarkus
+        caches.forEach(HotRodStateCache::removeChangeListeners);
+    }
+}
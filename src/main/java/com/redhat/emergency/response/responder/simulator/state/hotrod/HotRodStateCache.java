@@ -0,0 +1,148 @@
+package com.redhat.emergency.response.responder.simulator.state.hotrod;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.redhat.emergency.response.responder.simulator.state.ChangeListener;
+import com.redhat.emergency.response.responder.simulator.state.StateCache;
+import com.redhat.emergency.response.responder.simulator.state.StateIterator;
+import org.infinispan.client.hotrod.RemoteCache;
+import org.infinispan.commons.util.CloseableIterator;
+
+class HotRodStateCache<K, V> implements StateCache<K, V> {
+
+    private final RemoteCache<K, V> cache;
+
+    private final List<HotRodChangeListener<K>> listeners = new CopyOnWriteArrayList<>();
+
+    HotRodStateCache(RemoteCache<K, V> cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public V get(K key) {
+        return cache.get(key);
+    }
+
+    @Override
+    public CompletableFuture<V> getAsync(K key) {
+        return cache.getAsync(key);
+    }
+
+    @Override
+    public Map<K, V> getAll(Set<? extends K> keys) {
+        return cache.getAll(keys);
+    }
+
+    @Override
+    public CompletableFuture<V> putAsync(K key, V value) {
+        written(List.of(key));
+        return cache.putAsync(key, value).whenComplete((previous, throwable) -> {
+            if (throwable != null) {
+                notWritten(List.of(key));
+            }
+        });
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> entries) {
+        written(entries.keySet());
+        try {
+            cache.putAll(entries);
+        } catch (RuntimeException e) {
+            notWritten(entries.keySet());
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> putAllAsync(Map<? extends K, ? extends V> entries) {
+        written(entries.keySet());
+        return cache.putAllAsync(entries).whenComplete((unused, throwable) -> {
+            if (throwable != null) {
+                notWritten(entries.keySet());
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<V> removeAsync(K key) {
+        return cache.removeAsync(key);
+    }
+
+    /**
+     * Hot Rod has no conditional replace on the value, the value is replaced with the version it was read with.
+     */
+    @Override
+    public CompletableFuture<Boolean> replaceAsync(K key, V expected, V value) {
+        return cache.getWithMetadataAsync(key).thenCompose(current -> {
+            if (current == null || !Objects.deepEquals(current.getValue(), expected)) {
+                return CompletableFuture.completedFuture(false);
+            }
+            written(List.of(key));
+            return cache.replaceWithVersionAsync(key, value, current.getVersion()).whenComplete((replaced, throwable) -> {
+                if (throwable != null || !replaced) {
+                    notWritten(List.of(key));
+                }
+            });
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> clearAsync() {
+        return cache.clearAsync();
+    }
+
+    @Override
+    public int size() {
+        return cache.size();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public StateIterator<K, V> entries(int batchSize) {
+        CloseableIterator<Map.Entry<Object, Object>> entries = cache.retrieveEntries(null, batchSize);
+        return new StateIterator<>() {
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public Map.Entry<K, V> next() {
+                return (Map.Entry<K, V>) (Map.Entry<?, ?>) entries.next();
+            }
+
+            @Override
+            public void close() {
+                entries.close();
+            }
+        };
+    }
+
+    @Override
+    public void addChangeListener(ChangeListener<K> listener) {
+        HotRodChangeListener<K> clientListener = new HotRodChangeListener<>(listener);
+        cache.addClientListener(clientListener);
+        listeners.add(clientListener);
+    }
+
+    void removeChangeListeners() {
+        listeners.forEach(cache::removeClientListener);
+        listeners.clear();
+    }
+
+    // the listeners skip the events of the values written through this cache
+    private void written(Collection<? extends K> keys) {
+        listeners.forEach(listener -> listener.ownWrites.written(keys));
+    }
+
+    private void notWritten(Collection<? extends K> keys) {
+        listeners.forEach(listener -> listener.ownWrites.notWritten(keys));
+    }
+}
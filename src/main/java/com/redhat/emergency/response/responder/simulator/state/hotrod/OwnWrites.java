@@ -0,0 +1,56 @@
+package com.redhat.emergency.response.responder.simulator.state.hotrod;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts the values written through a {@link HotRodStateCache} whose events weren't received yet. Hot Rod client listeners
+ * also receive the events of the writes of their own client, which aren't changes made by another instance.
+ * <p>
+ * An event of another instance may be taken for an own write when both write the same key at the same time, its own event
+ * is then forwarded instead, after both writes.
+ */
+class OwnWrites<K> {
+
+    // pending events by key, byte array keys are compared by content
+    private final ConcurrentHashMap<Object, Integer> pending = new ConcurrentHashMap<>();
+
+    void written(Collection<? extends K> keys) {
+        keys.forEach(key -> pending.merge(wrap(key), 1, Integer::sum));
+    }
+
+    /**
+     * The writes failed or didn't happen, their events are not expected anymore.
+     */
+    void notWritten(Collection<? extends K> keys) {
+        keys.forEach(key -> pending.computeIfPresent(wrap(key), (k, count) -> count > 1 ? count - 1 : null));
+    }
+
+    /**
+     * @return true if the event of the key is the one of an own write
+     */
+    boolean received(K key) {
+        boolean[] own = new boolean[1];
+        pending.computeIfPresent(wrap(key), (k, count) -> {
+            own[0] = true;
+            return count > 1 ? count - 1 : null;
+        });
+        return own[0];
+    }
+
+    /**
+     * Events may have been missed, e.g. on failover.
+     */
+    void clear() {
+        pending.clear();
+    }
+
+    int size() {
+        return pending.size();
+    }
+
+    private static Object wrap(Object key) {
+        return key instanceof byte[] ? ByteBuffer.wrap((byte[]) key) : key;
+    }
+}
@@ -0,0 +1,55 @@
+package com.redhat.emergency.response.responder.simulator.state.offheap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.redhat.emergency.response.responder.simulator.state.StateBackend;
+import com.redhat.emergency.response.responder.simulator.state.StateCache;
+import com.redhat.emergency.response.responder.simulator.state.StateCodec;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores the state in the process, outside of the heap, for a single instance. The state is lost when the instance stops.
+ * <p>
+ * The caches share up to {@code maxSize} bytes of direct memory, reserved in slabs of {@code slabSize} bytes. The JVM limits
+ * the direct memory with {@code -XX:MaxDirectMemorySize}, which must leave room for {@code maxSize} bytes.
+ */
+public class OffHeapStateBackend implements StateBackend {
+
+    private static final Logger log = LoggerFactory.getLogger(OffHeapStateBackend.class);
+
+    private final SlabAllocator allocator;
+
+    private final Map<String, OffHeapStateCache<?, ?>> caches = new ConcurrentHashMap<>();
+
+    public OffHeapStateBackend(int slabSize, long maxSize, MeterRegistry registry) {
+        this.allocator = new SlabAllocator(slabSize, maxSize);
+        Gauge.builder("simulator.state.offheap", allocator, SlabAllocator::reserved).tag("memory", "reserved")
+                .description("Bytes of direct memory reserved by the off-heap state").baseUnit("bytes").register(registry);
+        Gauge.builder("simulator.state.offheap", allocator, SlabAllocator::used).tag("memory", "used")
+                .description("Bytes of direct memory used by the off-heap state").baseUnit("bytes").register(registry);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> StateCache<K, V> cache(String name, StateCodec<K> keyCodec, StateCodec<V> valueCodec) {
+        return (StateCache<K, V>) caches.computeIfAbsent(name, n -> {
+            log.info("Creating off-heap cache '" + name + "'");
+            return new OffHeapStateCache<>(allocator, keyCodec, valueCodec);
+        });
+    }
+
+    @Override
+    public boolean isDurable() {
+        return false;
+    }
+
+    @Override
+    public void close() {
+        caches.clear();
+        allocator.clear();
+    }
+}
@@ -0,0 +1,296 @@
+package com.redhat.emergency.response.responder.simulator.state.offheap;
+
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import com.redhat.emergency.response.responder.simulator.state.ChangeListener;
+import com.redhat.emergency.response.responder.simulator.state.StateCache;
+import com.redhat.emergency.response.responder.simulator.state.StateCodec;
+import com.redhat.emergency.response.responder.simulator.state.StateIterator;
+
+/**
+ * Keeps the serialized values in direct memory, indexed by their serialized keys on the heap. The operations complete on the
+ * caller thread.
+ */
+class OffHeapStateCache<K, V> implements StateCache<K, V> {
+
+    private final SlabAllocator allocator;
+
+    private final StateCodec<K> keyCodec;
+
+    private final StateCodec<V> valueCodec;
+
+    // address of the value of each key, guarded by lock
+    private final Map<Key, Long> index = new HashMap<>();
+
+    // the chunks of this cache are only freed under the write lock, so the readers never read a reused chunk
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    OffHeapStateCache(SlabAllocator allocator, StateCodec<K> keyCodec, StateCodec<V> valueCodec) {
+        this.allocator = allocator;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+    }
+
+    @Override
+    public V get(K key) {
+        Key k = new Key(keyCodec.encode(key));
+        byte[] bytes;
+        lock.readLock().lock();
+        try {
+            Long address = index.get(k);
+            if (address == null) {
+                return null;
+            }
+            bytes = allocator.read(address);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return valueCodec.decode(bytes);
+    }
+
+    @Override
+    public CompletableFuture<V> getAsync(K key) {
+        return complete(() -> get(key));
+    }
+
+    @Override
+    public Map<K, V> getAll(Set<? extends K> keys) {
+        Map<K, byte[]> values = new HashMap<>(keys.size());
+        lock.readLock().lock();
+        try {
+            for (K key : keys) {
+                Long address = index.get(new Key(keyCodec.encode(key)));
+                if (address != null) {
+                    values.put(key, allocator.read(address));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Map<K, V> result = new HashMap<>(values.size());
+        values.forEach((key, bytes) -> result.put(key, valueCodec.decode(bytes)));
+        return result;
+    }
+
+    /**
+     * @return a future completed with null, the previous value is not returned
+     */
+    @Override
+    public CompletableFuture<V> putAsync(K key, V value) {
+        return complete(() -> {
+            putAll(Map.of(key, value));
+            return null;
+        });
+    }
+
+    @Override
+    public void putAll(Map<? extends K, ? extends V> entries) {
+        // serialize before taking the lock
+        List<Key> keys = new ArrayList<>(entries.size());
+        List<byte[]> values = new ArrayList<>(entries.size());
+        entries.forEach((key, value) -> {
+            keys.add(new Key(keyCodec.encode(key)));
+            values.add(valueCodec.encode(value));
+        });
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < keys.size(); i++) {
+                Long previous = index.put(keys.get(i), allocator.allocate(values.get(i)));
+                if (previous != null) {
+                    allocator.free(previous);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> putAllAsync(Map<? extends K, ? extends V> entries) {
+        return complete(() -> {
+            putAll(entries);
+            return null;
+        });
+    }
+
+    /**
+     * @return a future completed with null, the previous value is not returned
+     */
+    @Override
+    public CompletableFuture<V> removeAsync(K key) {
+        return complete(() -> {
+            Key k = new Key(keyCodec.encode(key));
+            lock.writeLock().lock();
+            try {
+                Long previous = index.remove(k);
+                if (previous != null) {
+                    allocator.free(previous);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> replaceAsync(K key, V expected, V value) {
+        return complete(() -> {
+            Key k = new Key(keyCodec.encode(key));
+            byte[] expectedBytes = valueCodec.encode(expected);
+            byte[] bytes = valueCodec.encode(value);
+            lock.writeLock().lock();
+            try {
+                Long previous = index.get(k);
+                if (previous == null || !Arrays.equals(allocator.read(previous), expectedBytes)) {
+                    return false;
+                }
+                index.put(k, allocator.allocate(bytes));
+                allocator.free(previous);
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> clearAsync() {
+        return complete(() -> {
+            lock.writeLock().lock();
+            try {
+                index.values().forEach(allocator::free);
+                index.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Iterates over the keys present when the iteration started, reading their values in chunks of {@code batchSize}
+     * entries. The entries removed since are skipped.
+     */
+    @Override
+    public StateIterator<K, V> entries(int batchSize) {
+        List<Key> keys;
+        lock.readLock().lock();
+        try {
+            keys = new ArrayList<>(index.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+        return new OffHeapIterator(keys.iterator(), Math.max(1, batchSize));
+    }
+
+    /**
+     * The cache isn't shared with other instances, the listeners are never notified.
+     */
+    @Override
+    public void addChangeListener(ChangeListener<K> listener) {
+    }
+
+    private static <T> CompletableFuture<T> complete(Supplier<T> operation) {
+        try {
+            return CompletableFuture.completedFuture(operation.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private class OffHeapIterator implements StateIterator<K, V> {
+
+        private final Iterator<Key> keys;
+
+        private final int batchSize;
+
+        private final Queue<Map.Entry<K, V>> batch = new ArrayDeque<>();
+
+        private OffHeapIterator(Iterator<Key> keys, int batchSize) {
+            this.keys = keys;
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (batch.isEmpty() && keys.hasNext()) {
+                List<Map.Entry<Key, byte[]>> values = new ArrayList<>(batchSize);
+                lock.readLock().lock();
+                try {
+                    for (int i = 0; i < batchSize && keys.hasNext(); i++) {
+                        Key key = keys.next();
+                        Long address = index.get(key);
+                        if (address != null) {
+                            values.add(new AbstractMap.SimpleImmutableEntry<>(key, allocator.read(address)));
+                        }
+                    }
+                } finally {
+                    lock.readLock().unlock();
+                }
+                values.forEach(entry -> batch.add(new AbstractMap.SimpleImmutableEntry<>(keyCodec.decode(entry.getKey().bytes),
+                        valueCodec.decode(entry.getValue()))));
+            }
+            return !batch.isEmpty();
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return batch.poll();
+        }
+
+        @Override
+        public void close() {
+            batch.clear();
+        }
+    }
+
+    // serialized key, compared by content
+    private static final class Key {
+
+        private final byte[] bytes;
+
+        private final int hash;
+
+        private Key(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof Key && Arrays.equals(bytes, ((Key) o).bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
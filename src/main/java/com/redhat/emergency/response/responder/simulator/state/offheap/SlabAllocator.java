@@ -0,0 +1,189 @@
+package com.redhat.emergency.response.responder.simulator.state.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Allocates chunks of direct memory for byte arrays. The memory is reserved in slabs of {@code slabSize} bytes, each slab
+ * being split into chunks of one size class. The size classes grow by 25% from 64 bytes up to the slab size, and the chunks
+ * which are freed are reused for arrays of the same size class.
+ * <p>
+ * A chunk is addressed by the index of its slab in the high 32 bits and its offset in the low 32 bits. It starts with the
+ * length of the array.
+ */
+class SlabAllocator {
+
+    private static final int MIN_CHUNK_SIZE = 64;
+
+    private final int slabSize;
+
+    private final long maxSize;
+
+    private final int[] chunkSizes;
+
+    private final SizeClass[] sizeClasses;
+
+    // replaced when a slab is added, so readers don't need the lock
+    private volatile ByteBuffer[] slabs = new ByteBuffer[0];
+
+    // size class of each slab, guarded by this
+    private final List<Integer> slabClasses = new ArrayList<>();
+
+    // guarded by this
+    private long used = 0;
+
+    SlabAllocator(int slabSize, long maxSize) {
+        if (slabSize < MIN_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Slab size must be at least " + MIN_CHUNK_SIZE + " bytes");
+        }
+        this.slabSize = slabSize;
+        this.maxSize = maxSize;
+        List<Integer> sizes = new ArrayList<>();
+        int size = MIN_CHUNK_SIZE;
+        while (size < slabSize) {
+            sizes.add(size);
+            size = (int) Math.min(slabSize, ((size + size / 4) + 7L) & ~7L);
+        }
+        sizes.add(slabSize);
+        this.chunkSizes = sizes.stream().mapToInt(Integer::intValue).toArray();
+        this.sizeClasses = new SizeClass[chunkSizes.length];
+        for (int i = 0; i < sizeClasses.length; i++) {
+            sizeClasses[i] = new SizeClass(chunkSizes[i]);
+        }
+    }
+
+    /**
+     * Copies {@code bytes} into a new chunk.
+     *
+     * @return the address of the chunk
+     * @throws IllegalArgumentException if the array doesn't fit in a slab
+     * @throws IllegalStateException    if {@code maxSize} bytes are reserved and there is no free chunk of the size class
+     */
+    long allocate(byte[] bytes) {
+        int length = bytes.length + Integer.BYTES;
+        if (length > slabSize) {
+            throw new IllegalArgumentException("Value of " + bytes.length + " bytes larger than the slab size of " + slabSize + " bytes");
+        }
+        int sizeClass = Arrays.binarySearch(chunkSizes, length);
+        if (sizeClass < 0) {
+            sizeClass = -sizeClass - 1;
+        }
+        long address = allocate(sizeClass);
+        ByteBuffer chunk = slabs[slab(address)].duplicate();
+        chunk.position(offset(address));
+        chunk.putInt(bytes.length);
+        chunk.put(bytes);
+        return address;
+    }
+
+    /**
+     * @return a copy of the array in the chunk, which must not be freed concurrently
+     */
+    byte[] read(long address) {
+        ByteBuffer chunk = slabs[slab(address)].duplicate();
+        chunk.position(offset(address));
+        byte[] bytes = new byte[chunk.getInt()];
+        chunk.get(bytes);
+        return bytes;
+    }
+
+    synchronized void free(long address) {
+        SizeClass sizeClass = sizeClasses[slabClasses.get(slab(address))];
+        sizeClass.push(address);
+        used -= sizeClass.chunkSize;
+    }
+
+    /**
+     * Releases all the slabs, the direct memory is released when they are garbage collected.
+     */
+    synchronized void clear() {
+        slabs = new ByteBuffer[0];
+        slabClasses.clear();
+        for (int i = 0; i < sizeClasses.length; i++) {
+            sizeClasses[i] = new SizeClass(chunkSizes[i]);
+        }
+        used = 0;
+    }
+
+    /**
+     * @return the bytes of direct memory reserved in slabs
+     */
+    synchronized long reserved() {
+        return (long) slabs.length * slabSize;
+    }
+
+    /**
+     * @return the bytes of the allocated chunks
+     */
+    synchronized long used() {
+        return used;
+    }
+
+    private synchronized long allocate(int index) {
+        SizeClass sizeClass = sizeClasses[index];
+        long address;
+        if (sizeClass.free > 0) {
+            address = sizeClass.pop();
+        } else {
+            if (sizeClass.slab < 0 || sizeClass.next + sizeClass.chunkSize > slabSize) {
+                sizeClass.slab = addSlab(index);
+                sizeClass.next = 0;
+            }
+            address = ((long) sizeClass.slab << 32) | sizeClass.next;
+            sizeClass.next += sizeClass.chunkSize;
+        }
+        used += sizeClass.chunkSize;
+        return address;
+    }
+
+    private int addSlab(int sizeClass) {
+        if ((long) (slabs.length + 1) * slabSize > maxSize) {
+            throw new IllegalStateException("Off-heap state is full, " + reserved() + " bytes are reserved");
+        }
+        ByteBuffer[] grown = Arrays.copyOf(slabs, slabs.length + 1);
+        grown[slabs.length] = ByteBuffer.allocateDirect(slabSize);
+        slabClasses.add(sizeClass);
+        slabs = grown;
+        return grown.length - 1;
+    }
+
+    private static int slab(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    private static class SizeClass {
+
+        private final int chunkSize;
+
+        // slab the chunks are carved from, and offset of the next chunk in that slab
+        private int slab = -1;
+
+        private int next = 0;
+
+        // stack of the addresses of the free chunks
+        private long[] freeChunks = new long[16];
+
+        private int free = 0;
+
+        private SizeClass(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        private void push(long address) {
+            if (free == freeChunks.length) {
+                freeChunks = Arrays.copyOf(freeChunks, free * 2);
+            }
+            freeChunks[free++] = address;
+        }
+
+        private long pop() {
+            return freeChunks[--free];
+        }
+    }
+}
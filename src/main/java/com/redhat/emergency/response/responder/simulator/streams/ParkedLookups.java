@@ -0,0 +1,68 @@
+package com.redhat.emergency.response.responder.simulator.streams;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lookups waiting for a value which is not stored yet, resumed as soon as the value is stored.
+ * <p>
+ * The lookups of the same key share a future, which is removed when the value is stored or when the last of its lookups
+ * is released.
+ */
+class ParkedLookups<V> {
+
+    private final ConcurrentHashMap<String, Parked<V>> parked = new ConcurrentHashMap<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Parks a lookup for {@code key}, which must be {@link #release(String, Parked) released} once it is done.
+     */
+    Parked<V> park(String key) {
+        size.incrementAndGet();
+        return parked.compute(key, (k, p) -> {
+            Parked<V> result = p == null ? new Parked<>() : p;
+            result.lookups++;
+            return result;
+        });
+    }
+
+    void release(String key, Parked<V> lookup) {
+        size.decrementAndGet();
+        parked.computeIfPresent(key, (k, p) -> p != lookup || --p.lookups > 0 ? p : null);
+    }
+
+    /**
+     * Resumes the lookups parked for {@code key}.
+     */
+    void resume(String key, V value) {
+        Parked<V> p = parked.remove(key);
+        if (p != null) {
+            p.future.complete(value);
+        }
+    }
+
+    boolean isParked(String key) {
+        return parked.containsKey(key);
+    }
+
+    /**
+     * @return the number of parked lookups
+     */
+    int size() {
+        return size.get();
+    }
+
+    static class Parked<V> {
+
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+
+        // guarded by the map
+        private int lookups = 0;
+
+        CompletableFuture<V> future() {
+            return future;
+        }
+    }
+}
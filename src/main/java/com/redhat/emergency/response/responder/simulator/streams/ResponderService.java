@@ -1,12 +1,28 @@
 package com.redhat.emergency.response.responder.simulator.streams;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
+import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
+import com.redhat.emergency.response.responder.simulator.cache.BoundedCache;
+import com.redhat.emergency.response.responder.simulator.model.Responder;
+import com.redhat.emergency.response.responder.simulator.streams.infinispan.InfinispanKeyValueStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.smallrye.mutiny.TimeoutException;
 import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
 import io.vertx.core.json.JsonObject;
+import org.apache.kafka.common.utils.Bytes;
 import org.apache.kafka.streams.KafkaStreams;
 import org.apache.kafka.streams.StoreQueryParameters;
 import org.apache.kafka.streams.errors.InvalidStateStoreException;
@@ -24,32 +40,186 @@ public class ResponderService {
     @Inject
     KafkaStreams streams;
 
+    @Inject
+    StreamsState streamsState;
+
+    @Inject
+    InfinispanKeyValueStore keyValueStore;
+
     @ConfigProperty(name = "infinispan.streams.store", defaultValue = "responder-store")
     String storeName;
 
-    public Uni<JsonObject> responder(String id) {
-        return Uni.createFrom().item(() -> doGetResponder(id))
-                .onFailure(ResponderNotFoundException.class).retry().withBackOff(Duration.ofMillis(500), Duration.ofMillis(1000)).atMost(10)
-                .onFailure().recoverWithItem((Supplier<JsonObject>) JsonObject::new);
+    @ConfigProperty(name = "simulator.distance.base")
+    double baseDistance;
+
+    @ConfigProperty(name = "simulator.responder.store.timeout", defaultValue = "10000")
+    long storeTimeout;
+
+    @ConfigProperty(name = "simulator.responder.park.timeout", defaultValue = "30000")
+    long parkTimeout;
+
+    @ConfigProperty(name = "simulator.responder.park.recheck", defaultValue = "2000")
+    long parkRecheck;
+
+    @ConfigProperty(name = "simulator.responder.cache.size", defaultValue = "10000")
+    int cacheSize;
+
+    @ConfigProperty(name = "simulator.responder.cache.ttl", defaultValue = "600000")
+    long cacheTtl;
+
+    @Inject
+    MeterRegistry registry;
+
+    private Timer lookup;
+
+    private Counter retries;
+
+    // responders by id, updated by the responder-event topology for the partitions handled by this instance, and
+    // invalidated by the events of the responder store for the changes made by the other instances
+    private BoundedCache<String, Responder> cache;
+
+    // lookups of responders which are not in the store yet, resumed by the responder-event topology
+    private final ParkedLookups<Responder> parked = new ParkedLookups<>();
+
+    @PostConstruct
+    void init() {
+        cache = new BoundedCache<>(cacheSize, Duration.ofMillis(cacheTtl));
+        Gauge.builder("simulator.responder.cache.size", cache, BoundedCache::size).description("Responders in the local cache")
+                .register(registry);
+        FunctionCounter.builder("simulator.responder.cache.requests", cache, BoundedCache::hits).tag("result", "hit")
+                .description("Responder lookups served by the local cache").register(registry);
+        FunctionCounter.builder("simulator.responder.cache.requests", cache, BoundedCache::misses).tag("result", "miss")
+                .description("Responder lookups not served by the local cache").register(registry);
+        FunctionCounter.builder("simulator.responder.cache.evictions", cache, BoundedCache::evictions)
+                .description("Responders removed from the local cache because it was full or they expired").register(registry);
+        lookup = Timer.builder("simulator.responder.lookup")
+                .description("Responder lookups, including retries and waits for missing responders")
+                .publishPercentileHistogram().register(registry);
+        retries = Counter.builder("simulator.responder.lookup.retries").description("Responder lookups retried because the store was not available")
+                .register(registry);
+        Gauge.builder("simulator.responder.parked", parked, ParkedLookups::size)
+                .description("Responder lookups waiting for a responder which is not in the store yet").register(registry);
+        keyValueStore.addInvalidationListener(new InfinispanKeyValueStore.InvalidationListener() {
+            @Override
+            public void invalidated(Bytes key) {
+                responderChanged(new String(key.get(), StandardCharsets.UTF_8));
+            }
+
+            @Override
+            public void invalidatedAll() {
+                cache.invalidateAll();
+            }
+        });
     }
 
-    private JsonObject doGetResponder(String id) {
+    /**
+     * Looks up a responder. When the responder is not in the store yet, the lookup waits for the responder-event topology to
+     * store it for at most {@code simulator.responder.park.timeout} milliseconds, then fails with a
+     * {@link ResponderNotFoundException}.
+     */
+    public Uni<Responder> responder(String id) {
+        Responder cached = cache.get(id);
+        if (cached != null) {
+            return Uni.createFrom().item(cached);
+        }
+        return Uni.createFrom().deferred(() -> {
+            Timer.Sample sample = Timer.start(registry);
+            AtomicInteger attempts = new AtomicInteger();
+            // the retries subscribe again, only those are counted
+            return Uni.createFrom().deferred(() -> {
+                if (attempts.getAndIncrement() > 0) {
+                    retries.increment();
+                }
+                return streamsState.awaitRunning(Duration.ofMillis(storeTimeout)).onItem().transformToUni(v -> lookup(id));
+            })
+                    .onFailure(InvalidStateStoreException.class).retry().withBackOff(Duration.ofMillis(500), Duration.ofMillis(1000)).atMost(10)
+                    .onFailure(ResponderNotFoundException.class).recoverWithUni(() -> park(id))
+                    .onFailure(TimeoutException.class).invoke(e -> log.warn("Responder store not available after " + storeTimeout
+                            + " ms, state is " + streamsState.state()))
+                    .onFailure(e -> !(e instanceof ResponderNotFoundException))
+                    .recoverWithItem((Supplier<Responder>) () -> new Responder(false, baseDistance))
+                    .onItemOrFailure().invoke((responder, throwable) -> sample.stop(lookup));
+        });
+    }
+
+    /**
+     * Called by the responder-event topology for each responder it stores, with a null value for a deleted responder.
+     */
+    public void responderUpdated(String id, String responderStr) {
+        if (responderStr == null) {
+            cache.invalidate(id);
+        } else {
+            Responder responder = toResponder(responderStr);
+            cache.put(id, responder);
+            parked.resume(id, responder);
+        }
+    }
+
+    // the responder was stored, modified or deleted by another instance, or deleted by this one
+    private void responderChanged(String id) {
+        cache.invalidate(id);
+        if (parked.isParked(id)) {
+            // resume the lookups parked for a responder stored by the topology of another instance
+            lookup(id).subscribe().with(responder -> parked.resume(id, responder), throwable -> {});
+        }
+    }
+
+    private Uni<Responder> park(String id) {
+        return Uni.createFrom().deferred(() -> {
+            log.debug("Responder with id " + id + " not found in the responder store, waiting for it");
+            ParkedLookups.Parked<Responder> lookup = parked.park(id);
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(parkTimeout);
+            return awaitParked(id, lookup, deadline)
+                    .onFailure(ResponderNotFoundException.class).invoke(e -> log.warn("Responder with id " + id
+                            + " not found in the responder store after " + parkTimeout + " ms"))
+                    .onTermination().invoke((responder, throwable, cancelled) -> parked.release(id, lookup));
+        });
+    }
+
+    // checks the store again before each wait, as the responder may have been stored since the previous check, or by the
+    // topology of another instance while the events of the responder store were not received
+    private Uni<Responder> awaitParked(String id, ParkedLookups.Parked<Responder> lookup, long deadline) {
+        return lookup(id).onFailure(e -> e instanceof ResponderNotFoundException || e instanceof InvalidStateStoreException)
+                .recoverWithUni(() -> {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return Uni.createFrom().failure(new ResponderNotFoundException());
+                    }
+                    CompletableFuture<Responder> future = lookup.future();
+                    // resumed on the Kafka Streams thread, continue on a worker thread
+                    return Uni.createFrom().<Responder>emitter(emitter -> future.whenComplete((responder, t) -> emitter.complete(responder)))
+                            .emitOn(Infrastructure.getDefaultWorkerPool())
+                            .ifNoItem().after(Duration.ofNanos(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(parkRecheck))))
+                            .recoverWithUni(() -> Uni.createFrom().<Responder>nullItem())
+                            .onItem().transformToUni(responder -> responder != null ? Uni.createFrom().item(responder)
+                                    : awaitParked(id, lookup, deadline));
+                });
+    }
+
+    // the responder store is backed by a remote cache, keep the lookup off the event loop
+    private Uni<Responder> lookup(String id) {
+        return Uni.createFrom().item(() -> doGetResponder(id)).runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+    }
+
+    private Responder doGetResponder(String id) {
+        long stamp = cache.stamp();
         String responderStr = responderStore().get(id);
         if (responderStr == null) {
-            log.warn("Responder with id " + id + " not found in the responder store");
             throw new ResponderNotFoundException();
         }
-        return new JsonObject(responderStr);
+        Responder responder = toResponder(responderStr);
+        cache.putIfUnchanged(id, responder, stamp);
+        return responder;
+    }
+
+    private Responder toResponder(String responderStr) {
+        JsonObject json = new JsonObject(responderStr);
+        return new Responder(json.getBoolean("person", false), json.getDouble("distanceUnit", baseDistance));
     }
 
     private ReadOnlyKeyValueStore<String, String> responderStore() {
-        while (true) {
-            try {
-                return streams.store(StoreQueryParameters.fromNameAndType(storeName, QueryableStoreTypes.keyValueStore()));
-            } catch (InvalidStateStoreException e) {
-                // ignore, store not ready yet
-            }
-        }
+        // throws an InvalidStateStoreException when a rebalance started since Kafka Streams was last running
+        return streams.store(StoreQueryParameters.fromNameAndType(storeName, QueryableStoreTypes.keyValueStore()));
     }
 
 }
@@ -0,0 +1,29 @@
+package com.redhat.emergency.response.responder.simulator.streams;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.apache.kafka.streams.KafkaStreams;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.Readiness;
+
+/**
+ * Ready when the responder store can be queried, i.e. while Kafka Streams is running.
+ */
+@Readiness
+@ApplicationScoped
+public class ResponderStoreHealthCheck implements HealthCheck {
+
+    @Inject
+    StreamsState streamsState;
+
+    @Override
+    public HealthCheckResponse call() {
+        KafkaStreams.State state = streamsState.state();
+        return HealthCheckResponse.named("Responder store")
+                .withData("state", state.name())
+                .state(state == KafkaStreams.State.RUNNING)
+                .build();
+    }
+}
@@ -0,0 +1,91 @@
+package com.redhat.emergency.response.responder.simulator.streams;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import javax.enterprise.context.ApplicationScoped;
+
+import io.smallrye.mutiny.Uni;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tracks the state of the Kafka Streams instance, which is only queried while it is running.
+ * <p>
+ * Quarkus registers this bean as the state listener of the Kafka Streams instance it produces.
+ */
+@ApplicationScoped
+public class StreamsState implements KafkaStreams.StateListener {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamsState.class);
+
+    private volatile KafkaStreams.State state = KafkaStreams.State.CREATED;
+
+    // completed when Kafka Streams is running, replaced when it stops running, guarded by this
+    private CompletableFuture<Void> running = new CompletableFuture<>();
+
+    @Override
+    public void onChange(KafkaStreams.State newState, KafkaStreams.State oldState) {
+        log.info("Kafka Streams state changed from " + oldState + " to " + newState);
+        CompletableFuture<Void> previous;
+        synchronized (this) {
+            state = newState;
+            previous = running;
+            switch (newState) {
+                case RUNNING:
+                    break;
+                case PENDING_SHUTDOWN:
+                case NOT_RUNNING:
+                case ERROR:
+                    // Kafka Streams can't be restarted, fail the pending and future queries
+                    running = CompletableFuture.failedFuture(new InvalidStateStoreException("Kafka Streams is " + newState));
+                    break;
+                default:
+                    if (running.isDone()) {
+                        running = new CompletableFuture<>();
+                    }
+            }
+        }
+        // complete outside of the lock, the waiting queries continue on this thread
+        if (newState == KafkaStreams.State.RUNNING) {
+            previous.complete(null);
+        } else if (previous != running) {
+            previous.completeExceptionally(new InvalidStateStoreException("Kafka Streams is " + newState));
+        }
+    }
+
+    public KafkaStreams.State state() {
+        return state;
+    }
+
+    /**
+     * @return a stage completed when Kafka Streams is running, or failed with an {@link InvalidStateStoreException} when it
+     * stopped for good
+     */
+    public synchronized CompletionStage<Void> running() {
+        return running;
+    }
+
+    /**
+     * @return a Uni emitting once Kafka Streams is running, failing with a {@link io.smallrye.mutiny.TimeoutException} if it
+     * isn't running within {@code timeout}
+     */
+    public Uni<Void> awaitRunning(Duration timeout) {
+        return Uni.createFrom().deferred(() -> {
+            CompletableFuture<Void> future = running().toCompletableFuture();
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                return Uni.createFrom().nullItem();
+            }
+            // don't use Uni.createFrom().completionStage(), which cancels the shared future on timeout
+            return Uni.createFrom().<Void>emitter(emitter -> future.whenComplete((v, e) -> {
+                if (e == null) {
+                    emitter.complete(null);
+                } else {
+                    emitter.fail(e);
+                }
+            })).ifNoItem().after(timeout).fail();
+        });
+    }
+}
@@ -50,6 +50,9 @@ public class TopologyProducer {
     @Inject
     InfinispanKeyValueStoreSupplier keyValueStoreSupplier;
 
+    @Inject
+    ResponderService responderService;
+
     @Produces
     public Topology buildTopology() {
 
@@ -85,6 +88,7 @@ public class TopologyProducer {
                         return new KeyValue<>(value.getString("id"), null);
                     }
                 })
+                .peek(responderService::responderUpdated)
                 .toTable(Materialized.<String, String>as(keyValueStoreSupplier).withKeySerde(Serdes.String()).withValueSerde(Serdes.String()));
 
         return builder.build();
@@ -0,0 +1,95 @@
+package com.redhat.emergency.response.responder.simulator.streams.infinispan;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.state.KeyValueIterator;
+
+/**
+ * Iterates over the entries of the state backend, overlaid with the writes which are not flushed yet.
+ */
+class InfinispanKeyValueIterator implements KeyValueIterator<Bytes, byte[]> {
+
+    private final Iterator<Map.Entry<byte[], byte[]>> stored;
+
+    private final Runnable onClose;
+
+    // writes which are not flushed yet, by key, a value of InfinispanKeyValueStore.TOMBSTONE for a delete
+    private final Map<Bytes, byte[]> pending;
+
+    private final Predicate<Bytes> filter;
+
+    private Iterator<Map.Entry<Bytes, byte[]>> buffered;
+
+    private KeyValue<Bytes, byte[]> next;
+
+    private boolean closed = false;
+
+    /**
+     * @param pending a snapshot of the writes which are not flushed yet
+     */
+    InfinispanKeyValueIterator(Iterator<Map.Entry<byte[], byte[]>> stored, Runnable onClose, Map<Bytes, byte[]> pending,
+                               Predicate<Bytes> filter) {
+        this.stored = stored;
+        this.onClose = onClose;
+        this.pending = pending;
+        this.filter = filter;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            throw new IllegalStateException("Iterator is closed");
+        }
+        while (next == null && stored.hasNext()) {
+            Map.Entry<byte[], byte[]> entry = stored.next();
+            Bytes key = Bytes.wrap(entry.getKey());
+            // the pending writes of a key replace its stored value, they are returned after the stored entries
+            if (!pending.containsKey(key) && filter.test(key)) {
+                next = KeyValue.pair(key, entry.getValue());
+            }
+        }
+        if (next == null) {
+            if (buffered == null) {
+                buffered = pending.entrySet().iterator();
+            }
+            while (next == null && buffered.hasNext()) {
+                Map.Entry<Bytes, byte[]> entry = buffered.next();
+                if (entry.getValue() != InfinispanKeyValueStore.TOMBSTONE && filter.test(entry.getKey())) {
+                    next = KeyValue.pair(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public KeyValue<Bytes, byte[]> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        KeyValue<Bytes, byte[]> result = next;
+        next = null;
+        return result;
+    }
+
+    @Override
+    public Bytes peekNextKey() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return next.key;
+    }
+
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            onClose.run();
+        }
+    }
+}
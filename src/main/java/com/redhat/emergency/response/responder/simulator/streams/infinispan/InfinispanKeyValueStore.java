@@ -1,23 +1,40 @@
 package com.redhat.emergency.response.responder.simulator.streams.infinispan;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 
-import com.redhat.emergency.response.responder.simulator.infinispan.Configuration;
+import com.redhat.emergency.response.responder.simulator.cache.BoundedCache;
+import com.redhat.emergency.response.responder.simulator.state.ChangeListener;
+import com.redhat.emergency.response.responder.simulator.state.StateBackend;
+import com.redhat.emergency.response.responder.simulator.state.StateCache;
+import com.redhat.emergency.response.responder.simulator.state.StateCodec;
+import com.redhat.emergency.response.responder.simulator.state.StateIterator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.quarkus.runtime.StartupEvent;
 import org.apache.kafka.common.utils.Bytes;
 import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.processor.BatchingStateRestoreCallback;
 import org.apache.kafka.streams.processor.ProcessorContext;
 import org.apache.kafka.streams.processor.StateStore;
 import org.apache.kafka.streams.state.KeyValueIterator;
 import org.apache.kafka.streams.state.KeyValueStore;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
-import org.infinispan.client.hotrod.RemoteCache;
-import org.infinispan.client.hotrod.RemoteCacheManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,10 +43,13 @@ public class InfinispanKeyValueStore implements KeyValueStore<Bytes, byte[]> {
 
     private static final Logger log = LoggerFactory.getLogger(InfinispanKeyValueStore.class);
 
+    // buffered value of a deleted key, compared by reference
+    static final byte[] TOMBSTONE = new byte[0];
+
     private volatile boolean open = false;
 
     @Inject
-    RemoteCacheManager cacheManager;
+    StateBackend stateBackend;
 
     @ConfigProperty(name = "infinispan.streams.store", defaultValue = "responder-store")
     String storeName;
@@ -37,27 +57,92 @@ public class InfinispanKeyValueStore implements KeyValueStore<Bytes, byte[]> {
     @ConfigProperty(name = "infinispan.cache.create.lazy", defaultValue = "false")
     boolean lazy;
 
-    volatile RemoteCache<byte[], byte[]> cache;
+    @ConfigProperty(name = "infinispan.streams.store.batch-size", defaultValue = "1000")
+    int batchSize;
+
+    @ConfigProperty(name = "infinispan.streams.store.buffer-size", defaultValue = "10000")
+    int bufferSize;
+
+    @ConfigProperty(name = "infinispan.streams.store.near-cache.size", defaultValue = "10000")
+    int nearCacheSize;
+
+    @ConfigProperty(name = "infinispan.streams.store.near-cache.ttl", defaultValue = "600000")
+    long nearCacheTtl;
+
+    @Inject
+    MeterRegistry registry;
+
+    volatile StateCache<byte[], byte[]> cache;
+
+    // writes since the last flush by key, a value of TOMBSTONE for a delete
+    private final ConcurrentHashMap<Bytes, byte[]> pending = new ConcurrentHashMap<>();
+
+    private final Object flushLock = new Object();
+
+    // values read from the state backend, invalidated by the flushed writes and by the changes notified by the backend
+    private BoundedCache<Bytes, byte[]> nearCache;
+
+    private final List<InvalidationListener> invalidationListeners = new CopyOnWriteArrayList<>();
+
+
+    private Timer getTimer;
+
+    private Timer putAllTimer;
+
+    private Timer deleteTimer;
+
+    private Timer flushTimer;
+
+    @PostConstruct
+    void init() {
+        getTimer = timer("get");
+        putAllTimer = timer("putAll");
+        deleteTimer = timer("delete");
+        flushTimer = timer("flush");
+        nearCache = new BoundedCache<>(nearCacheSize, Duration.ofMillis(nearCacheTtl));
+        Gauge.builder("simulator.responder.store.cache.size", nearCache, BoundedCache::size)
+                .description("Entries in the near cache of the responder store").register(registry);
+        FunctionCounter.builder("simulator.responder.store.cache.requests", nearCache, BoundedCache::hits).tag("result", "hit")
+                .description("Responder store reads served by the near cache").register(registry);
+        FunctionCounter.builder("simulator.responder.store.cache.requests", nearCache, BoundedCache::misses).tag("result", "miss")
+                .description("Responder store reads not served by the near cache").register(registry);
+        FunctionCounter.builder("simulator.responder.store.cache.evictions", nearCache, BoundedCache::evictions)
+                .description("Entries removed from the near cache because it was full or they expired").register(registry);
+    }
+
+    /**
+     * Registers a listener notified when entries are created, modified or removed in the state backend by another instance.
+     * The writes flushed by this instance aren't notified, its deletes may be.
+     */
+    public void addInvalidationListener(InvalidationListener listener) {
+        invalidationListeners.add(listener);
+    }
 
     void onStart(@Observes StartupEvent e) {
-        // do not initialize the cache at startup when remote cache is not available, e.g. in QuarkusTests
+        // do not initialize the cache at startup when the state backend is not available, e.g. in QuarkusTests
         if (!lazy) {
             cache = initCache();
         }
     }
 
+    /**
+     * Buffers the write until the next {@link #flush()}, replacing the stored value if there is one.
+     */
     @Override
     public void put(Bytes key, byte[] value) {
-        if (value == null) {
-            delete(key);
-        } else {
-            getCache().putIfAbsent(key.get(), value);
+        pending.put(key, value == null ? TOMBSTONE : value);
+        if (pending.size() >= bufferSize) {
+            flush();
         }
     }
 
     @Override
     public byte[] putIfAbsent(Bytes key, byte[] value) {
-        return getCache().putIfAbsent(key.get(), value);
+        byte[] previous = get(key);
+        if (previous == null) {
+            put(key, value);
+        }
+        return previous;
     }
 
     @Override
@@ -65,13 +150,14 @@ public class InfinispanKeyValueStore implements KeyValueStore<Bytes, byte[]> {
         if (entries == null) {
             return;
         }
-        Map<byte[], byte[]> keyValueMap = entries.stream().collect(Collectors.toMap(k -> k.key.get(), v -> v.value));
-        getCache().putAll(keyValueMap);
+        entries.forEach(entry -> put(entry.key, entry.value));
     }
 
     @Override
     public byte[] delete(Bytes key) {
-        return getCache().remove(key.get());
+        byte[] previous = get(key);
+        put(key, null);
+        return previous;
     }
 
     @Override
@@ -82,14 +168,26 @@ public class InfinispanKeyValueStore implements KeyValueStore<Bytes, byte[]> {
     @Override
     public void init(ProcessorContext context, StateStore root) {
         if (root != null) {
-            context.register(root, (key, value) -> put(Bytes.wrap(key), value));
+            // restored records are written in batches, without going through the write buffer
+            context.register(root, (BatchingStateRestoreCallback) this::restoreAll);
         }
         open = true;
     }
 
+    /**
+     * Writes the buffered writes to the state backend, called by Kafka Streams before each commit.
+     */
     @Override
     public void flush() {
-        // do nothing
+        if (pending.isEmpty()) {
+            return;
+        }
+        synchronized (flushLock) {
+            Map<Bytes, byte[]> batch = new HashMap<>(pending);
+            flushTimer.record(() -> write(batch));
+            // the written entries stay visible to get until they are in the state backend, keep the ones written again since
+            batch.forEach(pending::remove);
+        }
     }
 
     @Override
@@ -109,17 +207,38 @@ public class InfinispanKeyValueStore implements KeyValueStore<Bytes, byte[]> {
 
     @Override
     public byte[] get(Bytes key) {
-        return getCache().get(key.get());
+        byte[] value = pending.get(key);
+        if (value != null) {
+            return value == TOMBSTONE ? null : value;
+        }
+        value = nearCache.get(key);
+        if (value != null) {
+            return value;
+        }
+        long stamp = nearCache.stamp();
+        value = getTimer.record(() -> getCache().get(key.get()));
+        if (value != null) {
+            nearCache.putIfUnchanged(key, value, stamp);
+        }
+        return value;
     }
 
+    /**
+     * Iterates over the entries of the state backend in chunks of {@code infinispan.streams.store.batch-size} entries. The
+     * entries are not ordered.
+     */
     @Override
     public KeyValueIterator<Bytes, byte[]> range(Bytes from, Bytes to) {
-        throw new UnsupportedOperationException("Method range not implemented)");
+        return iterator(key -> key.compareTo(from) >= 0 && key.compareTo(to) <= 0);
     }
 
+    /**
+     * Iterates over the entries of the state backend in chunks of {@code infinispan.streams.store.batch-size} entries. The
+     * entries are not ordered.
+     */
     @Override
     public KeyValueIterator<Bytes, byte[]> all() {
-        throw new UnsupportedOperationException("Method all not implemented)");
+        return iterator(key -> true);
     }
 
     @Override
@@ -127,8 +246,55 @@ public class InfinispanKeyValueStore implements KeyValueStore<Bytes, byte[]> {
         return getCache().size();
     }
 
-    private RemoteCache<byte[], byte[]> getCache() {
-        RemoteCache<byte[], byte[]> cache = this.cache;
+    private KeyValueIterator<Bytes, byte[]> iterator(Predicate<Bytes> filter) {
+        StateIterator<byte[], byte[]> entries = getCache().entries(batchSize);
+        return new InfinispanKeyValueIterator(entries, entries::close, new HashMap<>(pending), filter);
+    }
+
+    private void restoreAll(Collection<KeyValue<byte[], byte[]>> records) {
+        // the last record of a key wins
+        Map<Bytes, byte[]> batch = new LinkedHashMap<>();
+        records.forEach(record -> batch.put(Bytes.wrap(record.key), record.value == null ? TOMBSTONE : record.value));
+        write(batch);
+    }
+
+    // puts in chunks of batch-size entries, removes concurrently as there is no bulk remove
+    private void write(Map<Bytes, byte[]> batch) {
+        Map<byte[], byte[]> puts = new HashMap<>();
+        List<byte[]> deletes = new ArrayList<>();
+        for (Map.Entry<Bytes, byte[]> entry : batch.entrySet()) {
+            if (entry.getValue() == TOMBSTONE) {
+                deletes.add(entry.getKey().get());
+            } else {
+                puts.put(entry.getKey().get(), entry.getValue());
+                if (puts.size() >= batchSize) {
+                    backendPutAll(puts);
+                    puts = new HashMap<>();
+                }
+            }
+        }
+        if (!puts.isEmpty()) {
+            backendPutAll(puts);
+        }
+        if (!deletes.isEmpty()) {
+            deleteTimer.record(() -> CompletableFuture.allOf(deletes.stream().map(key -> getCache().removeAsync(key))
+                    .toArray(CompletableFuture[]::new)).join());
+        }
+        // before the writes are removed from the buffer, so the near cache never returns the previous values afterwards
+        batch.keySet().forEach(nearCache::invalidate);
+    }
+
+    private void backendPutAll(Map<byte[], byte[]> puts) {
+        putAllTimer.record(() -> getCache().putAll(puts));
+    }
+
+    private Timer timer(String operation) {
+        return Timer.builder("simulator.responder.store").description("Operations on the responder store").tag("operation", operation)
+                .register(registry);
+    }
+
+    private StateCache<byte[], byte[]> getCache() {
+        StateCache<byte[], byte[]> cache = this.cache;
         if (cache == null) {
             synchronized(this) {
                 if (this.cache == null) {
@@ -139,9 +305,38 @@ public class InfinispanKeyValueStore implements KeyValueStore<Bytes, byte[]> {
         return cache;
     }
 
-    private RemoteCache<byte[], byte[]> initCache() {
-        log.info("Creating remote cache '" + storeName + "'");
-        Configuration configuration = Configuration.builder().name(storeName).mode("SYNC").owners(2).build();
-        return cacheManager.administration().getOrCreateCache(storeName, configuration);
+    private StateCache<byte[], byte[]> initCache() {
+        StateCache<byte[], byte[]> cache = stateBackend.cache(storeName, StateCodec.BYTES, StateCodec.BYTES);
+        cache.addChangeListener(new ChangeListener<>() {
+            @Override
+            public void changed(byte[] key) {
+                invalidate(key);
+            }
+
+            @Override
+            public void changedAll() {
+                invalidateAll();
+            }
+        });
+        return cache;
+    }
+
+    private void invalidate(byte[] key) {
+        Bytes bytes = Bytes.wrap(key);
+        nearCache.invalidate(bytes);
+        invalidationListeners.forEach(listener -> listener.invalidated(bytes));
+    }
+
+    private void invalidateAll() {
+        log.info("Changes of the responder store may have been missed, invalidating the near cache");
+        nearCache.invalidateAll();
+        invalidationListeners.forEach(InvalidationListener::invalidatedAll);
+    }
+
+    public interface InvalidationListener {
+
+        void invalidated(Bytes key);
+
+        void invalidatedAll();
     }
 }
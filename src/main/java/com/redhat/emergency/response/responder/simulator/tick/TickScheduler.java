@@ -0,0 +1,127 @@
+package com.redhat.emergency.response.responder.simulator.tick;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Owns the tick deadlines of all active missions.
+ * <p>
+ * A single timer thread advances a {@link TimingWheel} every {@code simulator.tick.resolution} milliseconds. The keys
+ * which are due are handed over to the registered handler on a worker thread, in batches of at most
+ * {@code simulator.tick.batch-size} keys.
+ * <p>
+ * The delay between the deadline of a key and the moment its handler starts is recorded in the
+ * {@code simulator.tick.lag} timer.
+ */
+@ApplicationScoped
+public class TickScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(TickScheduler.class);
+
+    @ConfigProperty(name = "simulator.tick.resolution", defaultValue = "100")
+    long resolution;
+
+    @ConfigProperty(name = "simulator.tick.wheel-size", defaultValue = "512")
+    int wheelSize;
+
+    @ConfigProperty(name = "simulator.tick.batch-size", defaultValue = "500")
+    int batchSize;
+
+    @Inject
+    MeterRegistry registry;
+
+    private TimingWheel wheel;
+
+    private Timer lag;
+
+    private ScheduledExecutorService ticker;
+
+    private volatile Consumer<List<String>> handler;
+
+    @PostConstruct
+    void init() {
+        wheel = new TimingWheel(resolution, wheelSize, TickScheduler::now);
+        lag = Timer.builder("simulator.tick.lag").description("Delay between the scheduled and the actual tick of a mission")
+                .publishPercentileHistogram().register(registry);
+        Gauge.builder("simulator.tick.queue", wheel, TimingWheel::size).description("Missions waiting for their next tick")
+                .register(registry);
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "simulator-tick");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, resolution, resolution, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void destroy() {
+        ticker.shutdownNow();
+    }
+
+    public void onTick(Consumer<List<String>> handler) {
+        this.handler = handler;
+    }
+
+    public void schedule(String key, long delay) {
+        wheel.schedule(key, delay);
+    }
+
+    public boolean cancel(String key) {
+        return wheel.cancel(key);
+    }
+
+    public void cancelAll() {
+        wheel.clear();
+    }
+
+    /**
+     * @return the number of keys waiting for their next tick
+     */
+    public int queueDepth() {
+        return wheel.size();
+    }
+
+    private void tick() {
+        try {
+            List<TimingWheel.Timeout> due = wheel.advance(now());
+            if (due.isEmpty()) {
+                return;
+            }
+            Consumer<List<String>> handler = this.handler;
+            if (handler == null) {
+                log.warn("No tick handler registered, " + due.size() + " due keys are dropped");
+                return;
+            }
+            for (int i = 0; i < due.size(); i += batchSize) {
+                List<TimingWheel.Timeout> batch = due.subList(i, Math.min(i + batchSize, due.size()));
+                Infrastructure.getDefaultWorkerPool().execute(() -> {
+                    long now = now();
+                    batch.forEach(timeout -> lag.record(Math.max(0, now - timeout.deadline()), TimeUnit.MILLISECONDS));
+                    handler.accept(batch.stream().map(TimingWheel.Timeout::key).collect(Collectors.toList()));
+                });
+            }
+        } catch (Exception e) {
+            log.error("Error while advancing the tick scheduler", e);
+        }
+    }
+
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+}
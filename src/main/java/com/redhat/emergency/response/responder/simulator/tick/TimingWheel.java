@@ -0,0 +1,152 @@
+package com.redhat.emergency.response.responder.simulator.tick;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongSupplier;
+
+/**
+ * Hashed timing wheel holding one deadline per key.
+ * <p>
+ * Deadlines are hashed into {@code wheelSize} buckets of {@code tickMillis} each, so scheduling and cancelling are O(1)
+ * and advancing the wheel only visits the buckets whose time has come. Scheduling a key which already has a deadline
+ * replaces that deadline.
+ * <p>
+ * {@link #schedule(String, long)}, {@link #cancel(String)} and {@link #clear()} can be called from any thread,
+ * {@link #advance(long)} must always be called from the same thread.
+ */
+public class TimingWheel {
+
+    private final long tickMillis;
+
+    private final int mask;
+
+    private final ArrayDeque<Timeout>[] buckets;
+
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+
+    private final Map<String, Timeout> timeouts = new ConcurrentHashMap<>();
+
+    private final LongSupplier clock;
+
+    private final long startTime;
+
+    private long tick = 0;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int wheelSize, LongSupplier clock) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be greater than 0");
+        }
+        if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("wheelSize must be a power of 2");
+        }
+        this.tickMillis = tickMillis;
+        this.mask = wheelSize - 1;
+        this.buckets = new ArrayDeque[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.clock = clock;
+        this.startTime = clock.getAsLong();
+    }
+
+    public void schedule(String key, long delayMillis) {
+        Timeout timeout = new Timeout(key, clock.getAsLong() + delayMillis);
+        Timeout previous = timeouts.put(key, timeout);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+        pending.add(timeout);
+    }
+
+    public boolean cancel(String key) {
+        Timeout timeout = timeouts.remove(key);
+        if (timeout == null) {
+            return false;
+        }
+        timeout.cancelled = true;
+        return true;
+    }
+
+    public void clear() {
+        timeouts.keySet().forEach(this::cancel);
+    }
+
+    public int size() {
+        return timeouts.size();
+    }
+
+    /**
+     * Moves the wheel up to {@code now} and returns the timeouts which expired on the way, in deadline order per tick.
+     */
+    public List<Timeout> advance(long now) {
+        List<Timeout> expired = new ArrayList<>();
+        long target = (now - startTime) / tickMillis;
+        while (tick <= target) {
+            transferPending();
+            expire(buckets[(int) (tick & mask)], expired);
+            tick++;
+        }
+        return expired;
+    }
+
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            // round up, a timeout never fires before its deadline
+            long deadlineTick = Math.max(tick, (timeout.deadline - startTime + tickMillis - 1) / tickMillis);
+            timeout.rounds = (deadlineTick - tick) / buckets.length;
+            buckets[(int) (deadlineTick & mask)].add(timeout);
+        }
+    }
+
+    private void expire(ArrayDeque<Timeout> bucket, List<Timeout> expired) {
+        Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.cancelled) {
+                iterator.remove();
+            } else if (timeout.rounds <= 0) {
+                iterator.remove();
+                if (timeouts.remove(timeout.key, timeout)) {
+                    expired.add(timeout);
+                }
+            } else {
+                timeout.rounds--;
+            }
+        }
+    }
+
+    public static class Timeout {
+
+        private final String key;
+
+        private final long deadline;
+
+        private long rounds;
+
+        private volatile boolean cancelled = false;
+
+        private Timeout(String key, long deadline) {
+            this.key = key;
+            this.deadline = deadline;
+        }
+
+        public String key() {
+            return key;
+        }
+
+        public long deadline() {
+            return deadline;
+        }
+    }
+}
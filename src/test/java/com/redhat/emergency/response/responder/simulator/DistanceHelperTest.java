@@ -0,0 +1,68 @@
+package com.redhat.emergency.response.responder.simulator;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.redhat.emergency.response.responder.simulator.model.Coordinates;
+import org.junit.jupiter.api.Test;
+
+public class DistanceHelperTest {
+
+    private static final double[][] POLYLINE = {{34.1827, -77.9106}, {34.1842, -77.9125}, {34.1870, -77.9150}, {34.1901, -77.9188},
+            {34.1950, -77.9201}, {34.2010, -77.9250}, {34.2102, -77.9301}, {34.2300, -77.9600}, {34.2900, -78.0100}};
+
+    @Test
+    void testModeIsReadFromTheConfiguration() {
+        assertThat(DistanceHelper.getMode(), equalTo(DistanceHelper.Mode.HAVERSINE));
+        assertThat(DistanceHelper.calculateDistance(POLYLINE[0][0], POLYLINE[0][1], POLYLINE[1][0], POLYLINE[1][1]),
+                equalTo(DistanceHelper.Mode.HAVERSINE.calculateDistance(POLYLINE[0][0], POLYLINE[0][1], POLYLINE[1][0], POLYLINE[1][1])));
+    }
+
+    @Test
+    void testCumulativeDistances() {
+        for (DistanceHelper.Mode mode : DistanceHelper.Mode.values()) {
+            double[] cumulative = new double[POLYLINE.length];
+            mode.calculateCumulativeDistances(latE6(), lonE6(), cumulative, POLYLINE.length);
+            double expected = 0.0;
+            assertThat(cumulative[0], equalTo(0.0));
+            for (int i = 1; i < POLYLINE.length; i++) {
+                expected += mode.calculateDistance(POLYLINE[i - 1][0], POLYLINE[i - 1][1], POLYLINE[i][0], POLYLINE[i][1]);
+                assertThat(cumulative[i], equalTo(expected));
+            }
+        }
+    }
+
+    @Test
+    void testFastModeErrorBound() {
+        DistanceHelper.Mode haversineMode = DistanceHelper.Mode.HAVERSINE;
+        DistanceHelper.Mode fastMode = DistanceHelper.Mode.FAST;
+        for (int i = 1; i < POLYLINE.length; i++) {
+            double haversine = haversineMode.calculateDistance(POLYLINE[i - 1][0], POLYLINE[i - 1][1], POLYLINE[i][0], POLYLINE[i][1]);
+            Coordinates greatCircle = haversineMode.calculateIntermediateCoordinate(POLYLINE[i - 1][0], POLYLINE[i - 1][1],
+                    POLYLINE[i][0], POLYLINE[i][1], haversine / 3);
+            double fast = fastMode.calculateDistance(POLYLINE[i - 1][0], POLYLINE[i - 1][1], POLYLINE[i][0], POLYLINE[i][1]);
+            Coordinates planar = fastMode.calculateIntermediateCoordinate(POLYLINE[i - 1][0], POLYLINE[i - 1][1],
+                    POLYLINE[i][0], POLYLINE[i][1], haversine / 3);
+            assertThat(fast, closeTo(haversine, haversine * 1e-6));
+            assertThat(planar.getLatD(), closeTo(greatCircle.getLatD(), 0.0001));
+            assertThat(planar.getLonD(), closeTo(greatCircle.getLonD(), 0.0001));
+        }
+    }
+
+    private int[] latE6() {
+        int[] lat = new int[POLYLINE.length];
+        for (int i = 0; i < POLYLINE.length; i++) {
+            lat[i] = Coordinates.toMicrodegrees(POLYLINE[i][0]);
+        }
+        return lat;
+    }
+
+    private int[] lonE6() {
+        int[] lon = new int[POLYLINE.length];
+        for (int i = 0; i < POLYLINE.length; i++) {
+            lon[i] = Coordinates.toMicrodegrees(POLYLINE[i][1]);
+        }
+        return lon;
+    }
+}
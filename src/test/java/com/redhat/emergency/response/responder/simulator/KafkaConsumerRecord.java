@@ -15,10 +15,17 @@ public class KafkaConsumerRecord<K,V> implements io.vertx.kafka.client.consumer.
 
     private final long offset;
 
+    private final K key;
+
     public KafkaConsumerRecord(String topic, int partition, long offset) {
+        this(topic, partition, offset, null);
+    }
+
+    public KafkaConsumerRecord(String topic, int partition, long offset, K key) {
         this.topic = topic;
         this.partition = partition;
         this.offset = offset;
+        this.key = key;
     }
 
     @Override
@@ -53,7 +60,7 @@ public class KafkaConsumerRecord<K,V> implements io.vertx.kafka.client.consumer.
 
     @Override
     public K key() {
-        return null;
+        return key;
     }
 
     @Override
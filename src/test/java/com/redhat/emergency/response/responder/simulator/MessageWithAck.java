@@ -24,9 +24,13 @@ public class MessageWithAck<T> implements Message<T> {
     private MessageWithAck() {}
 
     static <T> MessageWithAck<T> of(T payload, String topic, int partition, long offset, boolean cloudEvent, String dataContentType, String messageType) {
+        return of(payload, null, topic, partition, offset, cloudEvent, dataContentType, messageType);
+    }
+
+    static <T> MessageWithAck<T> of(T payload, String key, String topic, int partition, long offset, boolean cloudEvent, String dataContentType, String messageType) {
         MessageWithAck<T> m = new MessageWithAck<>();
         m.payload = payload;
-        m.incomingKafkaRecordMetadata = new IncomingKafkaRecordMetadata<>(new io.vertx.mutiny.kafka.client.consumer.KafkaConsumerRecord<>(new KafkaConsumerRecord<String, T>(topic, partition, offset)));
+        m.incomingKafkaRecordMetadata = new IncomingKafkaRecordMetadata<>(new io.vertx.mutiny.kafka.client.consumer.KafkaConsumerRecord<>(new KafkaConsumerRecord<String, T>(topic, partition, offset, key)));
         if (cloudEvent) {
             DefaultCloudEventMetadataBuilder<T> defaultCloudEventMetadataBuilder = new DefaultCloudEventMetadataBuilder<T>();
             defaultCloudEventMetadataBuilder.withId(UUID.randomUUID().toString()).withSource(URI.create("emergency-response/test"))
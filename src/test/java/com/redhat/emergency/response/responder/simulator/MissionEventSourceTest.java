@@ -5,19 +5,27 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.openMocks;
 
+import java.util.ArrayList;
+import java.util.List;
+import javax.enterprise.inject.Any;
 import javax.inject.Inject;
 
+import com.redhat.emergency.response.responder.simulator.incoming.MissionStarted;
 import com.redhat.emergency.response.responder.simulator.streams.KafkaResource;
 import io.quarkus.test.common.QuarkusTestResource;
 import io.quarkus.test.junit.QuarkusTest;
 import io.quarkus.test.junit.mockito.InjectMock;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.reactive.messaging.connectors.InMemoryConnector;
+import io.smallrye.reactive.messaging.connectors.InMemorySource;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
-import io.vertx.mutiny.core.eventbus.Message;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -31,10 +39,11 @@ public class MissionEventSourceTest {
     Simulator simulator;
 
     @Inject
-    MissionEventSource missionEventSource;
+    @Any
+    InMemoryConnector connector;
 
     @Captor
-    ArgumentCaptor<Message<JsonObject>> messageCaptor;
+    ArgumentCaptor<MissionStarted> missionStartedCaptor;
 
     @BeforeEach
     void init() {
@@ -42,7 +51,7 @@ public class MissionEventSourceTest {
     }
 
     @Test
-    void testProcessMessage() {
+    void testProcessMessage() throws Exception {
         String payload = "{" +
                 "    \"id\": \"979a5f16-7421-41dd-bad5-26f405d693fe\"," +
                 "    \"incidentId\": \"incident236\"," +
@@ -71,28 +80,27 @@ public class MissionEventSourceTest {
                 "    ]" +
                 "}";
 
-        doAnswer(invocation -> {
-            Message<JsonObject> msg = invocation.getArgument(0);
-            msg.replyAndForget(new JsonObject());
-            return null;
-        }).when(simulator).processMissionCreated(any());
+        when(simulator.missionCreated(any())).thenReturn(Uni.createFrom().nullItem());
 
         MessageWithAck<String> message = MessageWithAck.of(payload, "topic", 10, 20, true, "application/json", "MissionStartedEvent");
-        missionEventSource.process(message).await().indefinitely();
-        verify(simulator).processMissionCreated(messageCaptor.capture());
-        Message<JsonObject> captured = messageCaptor.getValue();
-        assertThat(captured, notNullValue());
-        assertThat(captured.body(), notNullValue());
-        JsonObject body = captured.body();
-        assertThat(body.getString("id"), equalTo("979a5f16-7421-41dd-bad5-26f405d693fe"));
-        assertThat(body.getJsonArray("steps"), notNullValue());
-        assertThat(body.getJsonArray("steps").size(), equalTo(2));
+        send(message);
+        verify(simulator).missionCreated(missionStartedCaptor.capture());
+        MissionStarted body = missionStartedCaptor.getValue();
+        assertThat(body, notNullValue());
+        assertThat(body.getMissionId(), equalTo("979a5f16-7421-41dd-bad5-26f405d693fe"));
+        assertThat(body.getIncidentId(), equalTo("incident236"));
+        assertThat(body.getResponderId(), equalTo("responder123"));
+        assertThat(body.getResponderStart().getLatD(), equalTo(34.18323));
+        assertThat(body.getResponderStart().getLonD(), equalTo(-77.90999));
+        assertThat(body.getRoute(), notNullValue());
+        assertThat(body.getRoute().size(), equalTo(2));
+        assertThat(body.getRoute().lat(1), equalTo(34.1842));
+        assertThat(body.getRoute().lon(1), equalTo(-77.9125));
         assertThat(message.acked(), is(true));
     }
 
-    @SuppressWarnings("unchecked")
     @Test
-    void testProcessMessageWhenNotMissionStartedEvent() {
+    void testProcessMessageWhenNotMissionStartedEvent() throws Exception {
         String payload = "{" +
                 "    \"id\": \"979a5f16-7421-41dd-bad5-26f405d693fe\"," +
                 "    \"incidentId\": \"incident236\"," +
@@ -122,43 +130,71 @@ public class MissionEventSourceTest {
                 "}";
 
         MessageWithAck<String> message = MessageWithAck.of(payload, "topic", 10, 20, true, "application/json", "MissionCompletedEvent");
-        missionEventSource.process(message).await().indefinitely();
-        verify(simulator, never()).processMissionCreated(any(io.vertx.mutiny.core.eventbus.Message.class));
+        send(message);
+        verify(simulator, never()).missionCreated(any());
         assertThat(message.acked(), is(true));
     }
 
-    @SuppressWarnings("unchecked")
     @Test
-    void testProcessMessageWrongDataContentType() {
+    void testProcessMessageWrongDataContentType() throws Exception {
         String payload = "test";
 
         MessageWithAck<String> message = MessageWithAck.of(payload, "topic", 10, 20, true, "application/avro", "MissionStartedEvent");
-        missionEventSource.process(message).await().indefinitely();
-        verify(simulator, never()).processMissionCreated(any(io.vertx.mutiny.core.eventbus.Message.class));
+        send(message);
+        verify(simulator, never()).missionCreated(any());
         assertThat(message.acked(), is(true));
     }
 
 
-    @SuppressWarnings("unchecked")
     @Test
-    void testProcessMessageNoDataContentType() {
+    void testProcessMessageNoDataContentType() throws Exception {
         String payload = "test";
 
         MessageWithAck<String> message = MessageWithAck.of(payload, "topic", 10, 20, true, null, "MissionStartedEvent");
-        missionEventSource.process(message).await().indefinitely();
-        verify(simulator, never()).processMissionCreated(any(io.vertx.mutiny.core.eventbus.Message.class));
+        send(message);
+        verify(simulator, never()).missionCreated(any());
         assertThat(message.acked(), is(true));
     }
 
-    @SuppressWarnings("unchecked")
     @Test
-    void testProcessMessageWhenUnexpectedMessage() {
+    void testProcessMessageWhenUnexpectedMessage() throws Exception {
         String payload = "test";
 
         MessageWithAck<String> message = MessageWithAck.of(payload, "topic", 10, 20, true, "application/json", "MissionStartedEvent");
-        missionEventSource.process(message).await().indefinitely();
-        verify(simulator, never()).processMissionCreated(any(io.vertx.mutiny.core.eventbus.Message.class));
+        send(message);
+        verify(simulator, never()).missionCreated(any());
         assertThat(message.acked(), is(true));
     }
 
+    @Test
+    void testProcessMessagesFromChannel() throws Exception {
+        when(simulator.missionCreated(any())).thenReturn(Uni.createFrom().nullItem());
+
+        List<MessageWithAck<String>> messages = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String payload = new JsonObject().put("id", "mission" + i).put("incidentId", "incident" + i).put("responderId", "responder" + i)
+                    .put("responderStartLat", 34.18323).put("responderStartLong", -77.90999).put("steps", new JsonArray()).encode();
+            messages.add(MessageWithAck.of(payload, "incident" + i, "topic", 10, 20 + i, true, "application/json", "MissionStartedEvent"));
+        }
+        InMemorySource<MessageWithAck<String>> source = connector.source("mission-event");
+        messages.forEach(source::send);
+
+        verify(simulator, timeout(5000).times(3)).missionCreated(any());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline && !messages.stream().allMatch(MessageWithAck::acked)) {
+            Thread.sleep(10);
+        }
+        assertThat(messages.stream().allMatch(MessageWithAck::acked), is(true));
+    }
+
+    // sends the message through the mission-event channel, and waits until it is acknowledged
+    private void send(MessageWithAck<String> message) throws InterruptedException {
+        InMemorySource<MessageWithAck<String>> source = connector.source("mission-event");
+        source.send(message);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline && !message.acked()) {
+            Thread.sleep(10);
+        }
+    }
+
 }
@@ -3,17 +3,29 @@ package com.redhat.emergency.response.responder.simulator;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.util.Arrays;
-import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import com.redhat.emergency.response.responder.simulator.model.Coordinates;
 import com.redhat.emergency.response.responder.simulator.model.MissionStep;
 import com.redhat.emergency.response.responder.simulator.model.ResponderLocation;
+import com.redhat.emergency.response.responder.simulator.repository.BinaryResponderLocationCodec;
+import com.redhat.emergency.response.responder.simulator.repository.JsonResponderLocationCodec;
+import com.redhat.emergency.response.responder.simulator.repository.ResponderLocationRepository;
+import com.redhat.emergency.response.responder.simulator.state.StateBackend;
+import com.redhat.emergency.response.responder.simulator.state.StateCache;
+import com.redhat.emergency.response.responder.simulator.state.StateCodec;
+import com.redhat.emergency.response.responder.simulator.state.offheap.OffHeapStateBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
@@ -45,6 +57,8 @@ public class ResponderLocationRepositoryTest {
         assertThat(json.getString("status"), equalTo("CREATED"));
         assertThat(json.getBoolean("waiting"), is(false));
         assertThat(json.getDouble("distanceUnit"), equalTo(1000.0));
+        // instances of previous versions fail to decode unknown properties
+        assertThat(json.containsKey("distances"), is(false));
         assertThat(json.containsKey("queue"), is(true));
         JsonArray queue = json.getJsonArray("queue");
         assertThat(queue.size(), equalTo(2));
@@ -60,7 +74,6 @@ public class ResponderLocationRepositoryTest {
         assertThat(stepJson2.getJsonObject("coordinates").getDouble("lon"), equalTo(-87.98765));
     }
 
-    @SuppressWarnings("unchecked")
     @Test
     void testDecoding() throws Exception {
 
@@ -83,20 +96,189 @@ public class ResponderLocationRepositoryTest {
         assertThat(responderLocation.isPerson(), equalTo(true));
         assertThat((Double)field(responderLocation, "distanceUnit"), equalTo(1000.0));
         assertThat((Boolean)field(responderLocation, "waiting"), equalTo(true));
-        Deque<MissionStep> queue = (Deque<MissionStep>) field(responderLocation, "queue");
+        List<MissionStep> queue = responderLocation.steps();
         assertThat(queue.size(), equalTo(2));
-        MissionStep step1 = queue.getFirst();
+        MissionStep step1 = queue.get(0);
         assertThat(step1.getCoordinates().getLat(), equalTo(new BigDecimal("30.12345")));
         assertThat(step1.getCoordinates().getLon(), equalTo(new BigDecimal("-77.98765")));
         assertThat(step1.isWayPoint(), equalTo(false));
         assertThat(step1.isWayPoint(), equalTo(false));
-        MissionStep step2 = queue.getLast();
+        MissionStep step2 = queue.get(1);
         assertThat(step2.getCoordinates().getLat(), equalTo(new BigDecimal("40.12345")));
         assertThat(step2.getCoordinates().getLon(), equalTo(new BigDecimal("-87.98765")));
         assertThat(step2.isWayPoint(), equalTo(true));
         assertThat(step2.isWayPoint(), equalTo(true));
     }
 
+    @Test
+    void testBinaryEncodingRoundTrip() throws Exception {
+        MissionStep step1 = new MissionStep(new Coordinates(new BigDecimal("30.12345"), new BigDecimal("-77.98765")), false, false);
+        MissionStep step2 = new MissionStep(new Coordinates(new BigDecimal("40.1234"), new BigDecimal("-87.9876")), true, true);
+        List<MissionStep> steps = Arrays.asList(step1, step2);
+        Coordinates currentPosition = new Coordinates(new BigDecimal("29.12345"), new BigDecimal("-67.98765"));
+        ResponderLocation responderLocation = new ResponderLocation("missionId", "responderId", null, steps, currentPosition,
+                true, 1000.0, ResponderLocation.Status.WAITING, true);
+
+        Object encoded = BinaryResponderLocationCodec.INSTANCE.encode(responderLocation);
+        assertThat(BinaryResponderLocationCodec.INSTANCE.canDecode(encoded), is(true));
+        assertThat(JsonResponderLocationCodec.INSTANCE.canDecode(encoded), is(false));
+        ResponderLocation decoded = BinaryResponderLocationCodec.INSTANCE.decode(encoded);
+
+        assertThat(decoded.getMissionId(), equalTo("missionId"));
+        assertThat(decoded.getResponderId(), equalTo("responderId"));
+        assertThat(decoded.getIncidentId(), equalTo(null));
+        assertThat(decoded.getStatus(), equalTo(ResponderLocation.Status.WAITING));
+        assertThat(decoded.getCurrentPosition().getLat(), equalTo(new BigDecimal("29.12345")));
+        assertThat(decoded.getCurrentPosition().getLon(), equalTo(new BigDecimal("-67.98765")));
+        assertThat(decoded.isPerson(), equalTo(true));
+        assertThat((Double)field(decoded, "distanceUnit"), equalTo(1000.0));
+        assertThat((Boolean)field(decoded, "waiting"), equalTo(true));
+        List<MissionStep> queue = decoded.steps();
+        assertThat(queue.size(), equalTo(2));
+        assertThat(queue.get(0).getCoordinates().getLat(), equalTo(new BigDecimal("30.12345")));
+        assertThat(queue.get(0).getCoordinates().getLon(), equalTo(new BigDecimal("-77.98765")));
+        assertThat(queue.get(0).isWayPoint(), equalTo(false));
+        assertThat(queue.get(0).isDestination(), equalTo(false));
+        assertThat(queue.get(1).getCoordinates().getLat(), equalTo(new BigDecimal("40.1234")));
+        assertThat(queue.get(1).getCoordinates().getLon(), equalTo(new BigDecimal("-87.9876")));
+        assertThat(queue.get(1).isWayPoint(), equalTo(true));
+        assertThat(queue.get(1).isDestination(), equalTo(true));
+    }
+
+    @Test
+    void testJsonRoundTripMeasuresTheRoute() {
+        MissionStep step1 = new MissionStep(new Coordinates(new BigDecimal("30.12345"), new BigDecimal("-77.98765")), false, false);
+        MissionStep step2 = new MissionStep(new Coordinates(new BigDecimal("30.2234"), new BigDecimal("-77.9876")), false, false);
+        MissionStep step3 = new MissionStep(new Coordinates(new BigDecimal("30.3234"), new BigDecimal("-77.9876")), true, true);
+        Coordinates currentPosition = new Coordinates(new BigDecimal("29.12345"), new BigDecimal("-67.98765"));
+        ResponderLocation responderLocation = new ResponderLocation("missionId", "responderId", "incidentId",
+                Arrays.asList(step1, step2, step3), currentPosition, false, 1000.0);
+
+        ResponderLocation decoded = JsonResponderLocationCodec.INSTANCE.decode(JsonResponderLocationCodec.INSTANCE.encode(responderLocation));
+        assertThat(decoded.route().distance(0, 1), equalTo(responderLocation.route().distance(0, 1)));
+        assertThat(decoded.route().distance(0, 2), equalTo(responderLocation.route().distance(0, 2)));
+    }
+
+    @Test
+    void testBinaryEncodingIsSmallerThanJson() {
+        MissionStep step1 = new MissionStep(new Coordinates(new BigDecimal("30.12345"), new BigDecimal("-77.98765")), false, false);
+        MissionStep step2 = new MissionStep(new Coordinates(new BigDecimal("40.12345"), new BigDecimal("-87.98765")), true, true);
+        Coordinates currentPosition = new Coordinates(new BigDecimal("29.12345"), new BigDecimal("-67.98765"));
+        ResponderLocation responderLocation = new ResponderLocation("missionId", "responderId", "incidentId", Arrays.asList(step1, step2),
+                currentPosition, false, 1000.0);
+
+        byte[] binary = (byte[]) BinaryResponderLocationCodec.INSTANCE.encode(responderLocation);
+        String json = (String) JsonResponderLocationCodec.INSTANCE.encode(responderLocation);
+        assertThat(binary.length * 3, lessThan(json.length()));
+    }
+
+    @Test
+    void testBulkOperationsOnEmptyCollections() throws Exception {
+        StateBackend unavailable = new StateBackend() {
+            @Override
+            public <K, V> StateCache<K, V> cache(String name, StateCodec<K> keyCodec, StateCodec<V> valueCodec) {
+                throw new IllegalStateException("The state backend is not available");
+            }
+
+            @Override
+            public boolean isDurable() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        ResponderLocationRepository repository = repository(unavailable, "json");
+
+        assertThat(repository.getAll(List.of()).await().indefinitely(), equalTo(Map.of()));
+        assertThat(repository.putAll(List.of()).await().indefinitely(), nullValue());
+        assertThat(repository.removeAll(List.of()).await().indefinitely(), nullValue());
+    }
+
+    @Test
+    void testGetAllSkipsMissingKeys() throws Exception {
+        ResponderLocationRepository repository = repository(new OffHeapStateBackend(4096, 1048576, new SimpleMeterRegistry()), "json");
+        repository.putAll(List.of(responderLocation("mission1", "30.12345"), responderLocation("mission2", "31.12345")))
+                .await().indefinitely();
+
+        Map<String, ResponderLocation> responderLocations = repository.getAll(List.of("mission1", "missing", "mission2"))
+                .await().indefinitely();
+        assertThat(responderLocations.keySet(), equalTo(Set.of("mission1", "mission2")));
+        assertThat(responderLocations.get("mission2").getCurrentPosition().getLat(), equalTo(new BigDecimal("31.12345")));
+
+        repository.removeAll(List.of("mission1", "missing")).await().indefinitely();
+        assertThat(repository.getAll(List.of("mission1", "mission2")).await().indefinitely().keySet(), equalTo(Set.of("mission2")));
+    }
+
+    @Test
+    void testPutAllWithDuplicateKeys() throws Exception {
+        ResponderLocationRepository repository = repository(new OffHeapStateBackend(4096, 1048576, new SimpleMeterRegistry()), "json");
+        repository.putAll(List.of(responderLocation("mission1", "30.12345"), responderLocation("mission1", "31.12345")))
+                .await().indefinitely();
+
+        // the last location of a mission is stored
+        Map<String, ResponderLocation> responderLocations = repository.getAll(List.of("mission1")).await().indefinitely();
+        assertThat(responderLocations.size(), equalTo(1));
+        assertThat(responderLocations.get("mission1").getCurrentPosition().getLat(), equalTo(new BigDecimal("31.12345")));
+    }
+
+    @Test
+    void testSingleOperations() throws Exception {
+        ResponderLocationRepository repository = repository(new OffHeapStateBackend(4096, 1048576, new SimpleMeterRegistry()), "json");
+
+        assertThat(repository.put(responderLocation("mission1", "30.12345")).await().indefinitely(), equalTo("mission1"));
+        ResponderLocation responderLocation = repository.get("mission1").await().indefinitely();
+        assertThat(responderLocation.getMissionId(), equalTo("mission1"));
+        assertThat(responderLocation.getCurrentPosition().getLat(), equalTo(new BigDecimal("30.12345")));
+        assertThat(responderLocation.steps().size(), equalTo(2));
+        assertThat(repository.get("missing").await().indefinitely(), nullValue());
+
+        repository.remove("mission1").await().indefinitely();
+        assertThat(repository.get("mission1").await().indefinitely(), nullValue());
+        repository.put(responderLocation("mission2", "31.12345")).await().indefinitely();
+        repository.clear().await().indefinitely();
+        assertThat(repository.get("mission2").await().indefinitely(), nullValue());
+    }
+
+    @Test
+    void testEntriesOfTheOtherEncodingAreDecoded() throws Exception {
+        StateBackend stateBackend = new OffHeapStateBackend(4096, 1048576, new SimpleMeterRegistry());
+        repository(stateBackend, "binary").put(responderLocation("mission1", "30.12345")).await().indefinitely();
+        repository(stateBackend, "json").put(responderLocation("mission2", "31.12345")).await().indefinitely();
+
+        ResponderLocationRepository repository = repository(stateBackend, "json");
+        assertThat(repository.get("mission1").await().indefinitely().getCurrentPosition().getLat(), equalTo(new BigDecimal("30.12345")));
+        Map<String, ResponderLocation> responderLocations = repository(stateBackend, "binary").getAll(List.of("mission1", "mission2"))
+                .await().indefinitely();
+        assertThat(responderLocations.get("mission2").getCurrentPosition().getLat(), equalTo(new BigDecimal("31.12345")));
+    }
+
+    private ResponderLocation responderLocation(String missionId, String lat) {
+        MissionStep step1 = new MissionStep(new Coordinates(new BigDecimal("30.12345"), new BigDecimal("-77.98765")), false, false);
+        MissionStep step2 = new MissionStep(new Coordinates(new BigDecimal("40.12345"), new BigDecimal("-87.98765")), true, true);
+        Coordinates currentPosition = new Coordinates(new BigDecimal(lat), new BigDecimal("-67.98765"));
+        return new ResponderLocation(missionId, "responderId", "incidentId", Arrays.asList(step1, step2), currentPosition, false, 1000.0);
+    }
+
+    private ResponderLocationRepository repository(StateBackend stateBackend, String encoding) throws Exception {
+        ResponderLocationRepository repository = new ResponderLocationRepository();
+        setField(repository, "cacheName", "responder-simulator");
+        setField(repository, "encoding", encoding);
+        setField(repository, "stateBackend", stateBackend);
+        setField(repository, "registry", new SimpleMeterRegistry());
+        Method init = ResponderLocationRepository.class.getDeclaredMethod("init");
+        init.setAccessible(true);
+        init.invoke(repository);
+        return repository;
+    }
+
+    private void setField(Object obj, String field, Object value) throws Exception {
+        Field privateField = obj.getClass().getDeclaredField(field);
+        privateField.setAccessible(true);
+        privateField.set(obj, value);
+    }
+
     private Object field(Object obj, String field) throws Exception {
         Field privateField = obj.getClass().getDeclaredField(field);
         privateField.setAccessible(true);
@@ -0,0 +1,123 @@
+package com.redhat.emergency.response.responder.simulator;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.redhat.emergency.response.responder.simulator.model.Coordinates;
+import com.redhat.emergency.response.responder.simulator.model.MissionStep;
+import com.redhat.emergency.response.responder.simulator.model.ResponderLocation;
+import org.junit.jupiter.api.Test;
+
+public class ResponderLocationTest {
+
+    private static final double[][] ROUTE = {{34.1827, -77.9106}, {34.1842, -77.9125}, {34.1870, -77.9150}, {34.1901, -77.9188},
+            {34.1950, -77.9201}, {34.2010, -77.9250}, {34.2102, -77.9301}, {34.2110, -77.9310}, {34.2150, -77.9400},
+            {34.2230, -77.9480}, {34.2231, -77.9481}, {34.2300, -77.9600}};
+
+    private static final int WAYPOINT = 5;
+
+    @Test
+    void testMoveAlongRoute() {
+        ResponderLocation responderLocation = responderLocation(false);
+
+        move(responderLocation, 34.1901, -77.9188, ResponderLocation.Status.MOVING);
+        move(responderLocation, 34.201, -77.925, ResponderLocation.Status.PICKEDUP);
+        move(responderLocation, 34.211, -77.931, ResponderLocation.Status.MOVING);
+        move(responderLocation, 34.2189, -77.9439, ResponderLocation.Status.MOVING);
+        move(responderLocation, 34.23, -77.96, ResponderLocation.Status.DROPPED);
+        assertThat(responderLocation.steps().isEmpty(), is(true));
+    }
+
+    @Test
+    void testPersonWaitsAtWayPoint() {
+        ResponderLocation responderLocation = responderLocation(true);
+
+        move(responderLocation, 34.1901, -77.9188, ResponderLocation.Status.MOVING);
+        move(responderLocation, 34.201, -77.925, ResponderLocation.Status.WAITING);
+        responderLocation.continueMoving(ResponderLocation.Status.PICKEDUP);
+        move(responderLocation, 34.211, -77.931, ResponderLocation.Status.MOVING);
+        move(responderLocation, 34.2189, -77.9439, ResponderLocation.Status.MOVING);
+        move(responderLocation, 34.23, -77.96, ResponderLocation.Status.DROPPED);
+    }
+
+    @Test
+    void testMoveWithShortDistanceUnit() {
+        ResponderLocation responderLocation = new ResponderLocation("missionId", "responderId", "incidentId", steps(),
+                new Coordinates(new BigDecimal("34.18323"), new BigDecimal("-77.90999")), false, 400.0);
+
+        move(responderLocation, 34.1842, -77.9125, ResponderLocation.Status.MOVING);
+        move(responderLocation, 34.187, -77.915, ResponderLocation.Status.MOVING);
+        move(responderLocation, 34.1901, -77.9188, ResponderLocation.Status.MOVING);
+        move(responderLocation, 34.1936, -77.9197, ResponderLocation.Status.MOVING);
+        move(responderLocation, 34.1968, -77.9216, ResponderLocation.Status.MOVING);
+        move(responderLocation, 34.1998, -77.924, ResponderLocation.Status.MOVING);
+        move(responderLocation, 34.201, -77.925, ResponderLocation.Status.PICKEDUP);
+    }
+
+    @Test
+    void testMoveAlongDenseRoute() {
+        // 2001 steps, about 1.1 meter apart
+        List<MissionStep> steps = new ArrayList<>();
+        for (int i = 0; i <= 2000; i++) {
+            steps.add(new MissionStep(Coordinates.of(34.0 + i * 0.00001, -77.9), false, i == 2000));
+        }
+        ResponderLocation responderLocation = new ResponderLocation("missionId", "responderId", "incidentId", steps,
+                Coordinates.of(34.0, -77.9), false, 500.0);
+
+        move(responderLocation, 34.00346, -77.9, ResponderLocation.Status.MOVING);
+        move(responderLocation, 34.00692, -77.9, ResponderLocation.Status.MOVING);
+        int ticks = 2;
+        while (responderLocation.getStatus() != ResponderLocation.Status.DROPPED) {
+            responderLocation.calculateNextLocation();
+            responderLocation.moveToNextLocation();
+            ticks++;
+        }
+        assertThat(ticks, equalTo(6));
+        assertThat(responderLocation.getCurrentPosition().getLatD(), equalTo(34.02));
+    }
+
+    @Test
+    void testCoordinatesAreRoundedToMicrodegrees() {
+        // 6 decimal places, half up
+        Coordinates coordinates = new Coordinates(new BigDecimal("34.12345649"), new BigDecimal("-77.1234565"));
+        assertThat(coordinates.getLat(), equalTo(new BigDecimal("34.123456")));
+        assertThat(coordinates.getLon(), equalTo(new BigDecimal("-77.123457")));
+        assertThat(Coordinates.of(34.1234567891, -77.9).getLatE6(), equalTo(34123457));
+        // trailing zeros are not kept
+        assertThat(new Coordinates(new BigDecimal("34.1800"), new BigDecimal("-77.9000")).getLat(), equalTo(new BigDecimal("34.18")));
+
+        List<MissionStep> steps = List.of(new MissionStep(Coordinates.of(34.18271234, -77.91061234), false, false),
+                new MissionStep(Coordinates.of(34.1842, -77.9125), true, true));
+        ResponderLocation responderLocation = new ResponderLocation("missionId", "responderId", "incidentId", steps,
+                Coordinates.of(34.1827, -77.9106), false, 500.0);
+        assertThat(responderLocation.steps().get(0).getCoordinates().getLatD(), equalTo(34.182712));
+        assertThat(responderLocation.steps().get(0).getCoordinates().getLonD(), equalTo(-77.910612));
+    }
+
+    private void move(ResponderLocation responderLocation, double lat, double lon, ResponderLocation.Status status) {
+        responderLocation.calculateNextLocation();
+        responderLocation.moveToNextLocation();
+        assertThat(responderLocation.getCurrentPosition().getLatD(), equalTo(lat));
+        assertThat(responderLocation.getCurrentPosition().getLonD(), equalTo(lon));
+        assertThat(responderLocation.getStatus(), equalTo(status));
+    }
+
+    private ResponderLocation responderLocation(boolean person) {
+        return new ResponderLocation("missionId", "responderId", "incidentId", steps(),
+                new Coordinates(new BigDecimal("34.18323"), new BigDecimal("-77.90999")), person, 1500.0);
+    }
+
+    private List<MissionStep> steps() {
+        List<MissionStep> steps = new ArrayList<>();
+        for (int i = 0; i < ROUTE.length; i++) {
+            steps.add(new MissionStep(new Coordinates(BigDecimal.valueOf(ROUTE[i][0]), BigDecimal.valueOf(ROUTE[i][1])),
+                    i == WAYPOINT, i == ROUTE.length - 1));
+        }
+        return steps;
+    }
+}
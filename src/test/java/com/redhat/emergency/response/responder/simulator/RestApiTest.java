@@ -2,11 +2,10 @@ package com.redhat.emergency.response.responder.simulator;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
-import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.openMocks;
 
 import com.redhat.emergency.response.responder.simulator.streams.KafkaResource;
@@ -14,8 +13,7 @@ import io.quarkus.test.common.QuarkusTestResource;
 import io.quarkus.test.junit.QuarkusTest;
 import io.quarkus.test.junit.mockito.InjectMock;
 import io.restassured.RestAssured;
-import io.vertx.core.json.JsonObject;
-import io.vertx.mutiny.core.eventbus.Message;
+import io.smallrye.mutiny.Uni;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -29,7 +27,10 @@ public class RestApiTest {
     Simulator simulator;
 
     @Captor
-    ArgumentCaptor<Message<JsonObject>> messageCaptor;
+    ArgumentCaptor<String> missionIdCaptor;
+
+    @Captor
+    ArgumentCaptor<String> statusCaptor;
 
     @BeforeEach
     void init() {
@@ -39,24 +40,16 @@ public class RestApiTest {
     @Test
     void testMissionStatus() {
 
-        doAnswer(invocation -> {
-            Message<JsonObject> msg = invocation.getArgument(0);
-            msg.replyAndForget(new JsonObject());
-            return null;
-        }).when(simulator).processResponderLocationStatus(any());
+        when(simulator.responderLocationStatus(any(), any())).thenReturn(Uni.createFrom().nullItem());
 
         String body = "{\"missionId\":\"qwerty\", \"status\":\"PICKEDUP\"}";
 
         RestAssured.given().body(body).post("/api/mission").then()
                 .assertThat()
                 .statusCode(200);
-        verify(simulator).processResponderLocationStatus(messageCaptor.capture());
-        Message<JsonObject> captured = messageCaptor.getValue();
-        assertThat(captured, notNullValue());
-        assertThat(captured.body(), notNullValue());
-        JsonObject json = captured.body();
-        assertThat(json.getString("missionId"), equalTo("qwerty"));
-        assertThat(json.getString("status"), equalTo("PICKEDUP"));
+        verify(simulator).responderLocationStatus(missionIdCaptor.capture(), statusCaptor.capture());
+        assertThat(missionIdCaptor.getValue(), equalTo("qwerty"));
+        assertThat(statusCaptor.getValue(), equalTo("PICKEDUP"));
     }
 
     @Test
@@ -67,6 +60,17 @@ public class RestApiTest {
         RestAssured.given().body(body).post("/api/mission").then()
                 .assertThat()
                 .statusCode(500);
-        verify(simulator, never()).processResponderLocationStatus(any());
+        verify(simulator, never()).responderLocationStatus(any(), any());
+    }
+
+    @Test
+    void testClear() {
+
+        when(simulator.clear()).thenReturn(Uni.createFrom().nullItem());
+
+        RestAssured.given().post("/api/clear").then()
+                .assertThat()
+                .statusCode(200);
+        verify(simulator).clear();
     }
 }
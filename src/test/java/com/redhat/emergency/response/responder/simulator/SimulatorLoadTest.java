@@ -0,0 +1,296 @@
+package com.redhat.emergency.response.responder.simulator;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.enterprise.inject.Any;
+import javax.inject.Inject;
+
+import com.redhat.emergency.response.responder.simulator.model.Responder;
+import com.redhat.emergency.response.responder.simulator.model.ResponderLocation;
+import com.redhat.emergency.response.responder.simulator.repository.BinaryResponderLocationCodec;
+import com.redhat.emergency.response.responder.simulator.repository.JsonResponderLocationCodec;
+import com.redhat.emergency.response.responder.simulator.repository.ResponderLocationCodec;
+import com.redhat.emergency.response.responder.simulator.repository.ResponderLocationRepository;
+import com.redhat.emergency.response.responder.simulator.streams.ResponderService;
+import com.redhat.emergency.response.responder.simulator.tick.TickScheduler;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.quarkus.test.junit.mockito.InjectMock;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.reactive.messaging.connectors.InMemoryConnector;
+import io.smallrye.reactive.messaging.connectors.InMemorySink;
+import io.smallrye.reactive.messaging.connectors.InMemorySource;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Load test of the simulator: drives MissionStartedEvents through the mission-event channel and lets the missions run
+ * for a while. The mission-event and responder-location-update channels use the in-memory connector, and the Infinispan
+ * repository and the responder store are in-memory stand-ins. No Kafka broker is started: the responder-event topology
+ * keeps waiting for its topics in the background, and is not used by the stand-in responder store.
+ * <p>
+ * Excluded from the default build, run it with {@code mvn test -Pload}. The load is configured with system properties:
+ * {@code load.missions} (default 5000), {@code load.route-steps} (500), {@code load.duration} (seconds, 30),
+ * {@code load.delay} (simulator.delay in milliseconds, 1000), {@code load.concurrency} (simulator.mission-event.concurrency,
+ * 500) and {@code load.encoding} (json or binary). The report is written to {@code target/load-report.json}.
+ * <p>
+ * The tick lag is the time between the moment a mission is due, {@code simulator.delay} after it was last stored, and the
+ * moment it is loaded for its next tick. The heap per mission includes the encoded entry held by the stand-in
+ * repository, which lives in Infinispan in a real deployment; {@code storedBytesPerMission} is the size of that entry.
+ */
+@QuarkusTest
+@TestProfile(SimulatorLoadTest.LoadProfile.class)
+@Tag("load")
+public class SimulatorLoadTest {
+
+    private static final int MISSIONS = Integer.getInteger("load.missions", 5000);
+
+    private static final int ROUTE_STEPS = Integer.getInteger("load.route-steps", 500);
+
+    private static final int DURATION = Integer.getInteger("load.duration", 30);
+
+    private static final long DELAY = Long.getLong("load.delay", 1000);
+
+    private static final String ENCODING = System.getProperty("load.encoding", "json");
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 500);
+
+    @InjectMock
+    ResponderLocationRepository repository;
+
+    @InjectMock
+    ResponderService responderService;
+
+    @Inject
+    TickScheduler scheduler;
+
+    @Inject
+    @Any
+    InMemoryConnector connector;
+
+    private final Map<String, Object> store = new ConcurrentHashMap<>();
+
+    // time at which each entry was last written, the next tick is due simulator.delay later
+    private final Map<String, Long> writtenAt = new ConcurrentHashMap<>();
+
+    private final List<Long> tickLags = new ArrayList<>();
+
+    private ResponderLocationCodec codec;
+
+    public static class LoadProfile implements QuarkusTestProfile {
+
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            Map<String, String> config = new HashMap<>();
+            config.put("mp.messaging.incoming.mission-event.connector", "smallrye-in-memory");
+            config.put("mp.messaging.outgoing.responder-location-update.connector", "smallrye-in-memory");
+            config.put("simulator.delay", Long.toString(DELAY));
+            config.put("simulator.mission-event.concurrency", Integer.toString(CONCURRENCY));
+            config.put("quarkus.log.level", "WARN");
+            // the Kafka Streams clients warn about the missing broker
+            config.put("quarkus.log.category.\"org.apache.kafka\".level", "ERROR");
+            return config;
+        }
+    }
+
+    @BeforeEach
+    void init() {
+        codec = "binary".equalsIgnoreCase(ENCODING) ? BinaryResponderLocationCodec.INSTANCE : JsonResponderLocationCodec.INSTANCE;
+        when(responderService.responder(anyString()))
+                .thenAnswer(invocation -> Uni.createFrom().item(new Responder(false, 1500.0)));
+        when(repository.put(any())).thenAnswer(invocation -> {
+            ResponderLocation responderLocation = invocation.getArgument(0);
+            write(responderLocation);
+            return Uni.createFrom().item(responderLocation.key());
+        });
+        when(repository.get(anyString())).thenAnswer(invocation -> Uni.createFrom().item(read(invocation.getArgument(0))));
+        when(repository.getAll(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> keys = invocation.getArgument(0);
+            long now = System.nanoTime();
+            Map<String, ResponderLocation> responderLocations = new HashMap<>();
+            List<Long> lags = new ArrayList<>(keys.size());
+            for (String key : keys) {
+                Long written = writtenAt.get(key);
+                if (written != null) {
+                    lags.add(TimeUnit.NANOSECONDS.toMillis(now - written) - DELAY);
+                }
+                ResponderLocation responderLocation = read(key);
+                if (responderLocation != null) {
+                    responderLocations.put(key, responderLocation);
+                }
+            }
+            synchronized (tickLags) {
+                tickLags.addAll(lags);
+            }
+            return Uni.createFrom().item(responderLocations);
+        });
+        when(repository.putAll(anyCollection())).thenAnswer(invocation -> {
+            Collection<ResponderLocation> responderLocations = invocation.getArgument(0);
+            responderLocations.forEach(this::write);
+            return Uni.createFrom().nullItem();
+        });
+        when(repository.remove(anyString())).thenAnswer(invocation -> {
+            remove(invocation.getArgument(0));
+            return Uni.createFrom().nullItem();
+        });
+        when(repository.removeAll(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> keys = invocation.getArgument(0);
+            keys.forEach(this::remove);
+            return Uni.createFrom().nullItem();
+        });
+        when(repository.clear()).thenAnswer(invocation -> {
+            store.clear();
+            writtenAt.clear();
+            return Uni.createFrom().nullItem();
+        });
+    }
+
+    @Test
+    void testLoad() throws Exception {
+        InMemorySink<byte[]> sink = connector.sink("responder-location-update");
+        sink.clear();
+        List<MessageWithAck<String>> messages = new ArrayList<>(MISSIONS);
+        for (int i = 0; i < MISSIONS; i++) {
+            messages.add(MessageWithAck.of(missionStartedEvent(i), "incident" + i, "topic-mission-event", i % 10, i / 10, true,
+                    "application/json", "MissionStartedEvent"));
+        }
+        long heapBefore = usedHeap();
+
+        long start = System.nanoTime();
+        InMemorySource<MessageWithAck<String>> source = connector.source("mission-event");
+        messages.forEach(source::send);
+        long deadline = start + TimeUnit.SECONDS.toNanos(60);
+        while (System.nanoTime() < deadline && !messages.stream().allMatch(MessageWithAck::acked)) {
+            Thread.sleep(10);
+        }
+        long acceptMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        int accepted = (int) messages.stream().filter(MessageWithAck::acked).count();
+
+        sink.clear();
+        long heapActive = usedHeap();
+        int activeAtStart = store.size();
+        long storedBytes = store.values().stream().mapToLong(SimulatorLoadTest::size).sum();
+
+        List<Integer> queueDepths = new ArrayList<>();
+        AtomicInteger updates = new AtomicInteger();
+        long measureStart = System.nanoTime();
+        for (int s = 0; s < DURATION; s++) {
+            Thread.sleep(1000);
+            updates.addAndGet(sink.received().size());
+            sink.clear();
+            queueDepths.add(scheduler.queueDepth());
+        }
+        long measureMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - measureStart);
+
+        long[] lags;
+        synchronized (tickLags) {
+            lags = tickLags.stream().mapToLong(Long::longValue).sorted().toArray();
+        }
+
+        JsonObject report = new JsonObject()
+                .put("missions", MISSIONS)
+                .put("routeSteps", ROUTE_STEPS)
+                .put("delayMillis", DELAY)
+                .put("encoding", ENCODING)
+                .put("accepted", accepted)
+                .put("acceptMillis", acceptMillis)
+                .put("missionsPerSecond", accepted * 1000.0 / acceptMillis)
+                .put("activeMissions", activeAtStart)
+                .put("heapPerMissionBytes", activeAtStart == 0 ? 0 : (heapActive - heapBefore) / activeAtStart)
+                .put("storedBytesPerMission", activeAtStart == 0 ? 0 : storedBytes / activeAtStart)
+                .put("measureMillis", measureMillis)
+                .put("updates", updates.get())
+                .put("updatesPerSecond", updates.get() * 1000.0 / measureMillis)
+                .put("ticks", lags.length)
+                .put("tickLagMillis", new JsonObject()
+                        .put("p50", percentile(lags, 0.50))
+                        .put("p90", percentile(lags, 0.90))
+                        .put("p99", percentile(lags, 0.99))
+                        .put("max", lags.length == 0 ? 0 : lags[lags.length - 1]))
+                .put("queueDepth", new JsonArray(queueDepths))
+                .put("remainingMissions", store.size());
+        writeReport(report);
+
+        assertThat(accepted, equalTo(MISSIONS));
+        assertThat(updates.get(), greaterThan(0));
+    }
+
+    private void write(ResponderLocation responderLocation) {
+        store.put(responderLocation.key(), codec.encode(responderLocation));
+        writtenAt.put(responderLocation.key(), System.nanoTime());
+    }
+
+    private ResponderLocation read(String key) {
+        Object value = store.get(key);
+        return value == null ? null : codec.decode(value);
+    }
+
+    private void remove(String key) {
+        store.remove(key);
+        writtenAt.remove(key);
+    }
+
+    private String missionStartedEvent(int i) {
+        JsonArray steps = new JsonArray();
+        for (int s = 1; s <= ROUTE_STEPS; s++) {
+            steps.add(new JsonObject().put("lat", 34.0 + s * 0.001).put("lon", -77.9 + (i % 100) * 0.001)
+                    .put("wayPoint", s == ROUTE_STEPS / 2).put("destination", s == ROUTE_STEPS));
+        }
+        return new JsonObject().put("id", "mission-" + i)
+                .put("incidentId", "incident-" + i)
+                .put("responderId", "responder-" + i)
+                .put("responderStartLat", 34.0)
+                .put("responderStartLong", -77.9 + (i % 100) * 0.001)
+                .put("status", "CREATED")
+                .put("steps", steps).encode();
+    }
+
+    private static long size(Object value) {
+        return value instanceof byte[] ? ((byte[]) value).length : ((String) value).length();
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)];
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void writeReport(JsonObject report) throws IOException {
+        Path path = Paths.get("target", "load-report.json");
+        Files.createDirectories(path.getParent());
+        Files.write(path, report.encodePrettily().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,341 @@
+package com.redhat.emergency.response.responder.simulator;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import com.redhat.emergency.response.responder.simulator.journal.MissionJournal;
+import com.redhat.emergency.response.responder.simulator.lease.MissionLeases;
+import com.redhat.emergency.response.responder.simulator.model.Coordinates;
+import com.redhat.emergency.response.responder.simulator.model.MissionStep;
+import com.redhat.emergency.response.responder.simulator.model.ResponderLocation;
+import com.redhat.emergency.response.responder.simulator.repository.ResponderLocationRepository;
+import com.redhat.emergency.response.responder.simulator.state.StateBackend;
+import com.redhat.emergency.response.responder.simulator.state.offheap.OffHeapStateBackend;
+import com.redhat.emergency.response.responder.simulator.tick.TickScheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.mutiny.Uni;
+import io.vertx.core.json.JsonObject;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+public class SimulatorTest {
+
+    @TempDir
+    Path dir;
+
+    private final StateBackend backend = new OffHeapStateBackend(4096, 1048576, new SimpleMeterRegistry());
+
+    // keys scheduled for their next tick
+    private final Set<String> scheduled = ConcurrentHashMap.newKeySet();
+
+    // missionId:status of the location updates sent
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+
+    private volatile Consumer<List<String>> tickHandler;
+
+    private final TickScheduler scheduler = new TickScheduler() {
+        @Override
+        public void onTick(Consumer<List<String>> handler) {
+            tickHandler = handler;
+        }
+
+        @Override
+        public void schedule(String key, long delay) {
+            scheduled.add(key);
+        }
+    };
+
+    @Test
+    void testLocationUpdatesAreSentWhenTheRemovalFails() throws Exception {
+        ResponderLocationRepository repository = repository(new ResponderLocationRepository() {
+            @Override
+            public Uni<Void> removeAll(Collection<String> keys) {
+                return keys.isEmpty() ? Uni.createFrom().nullItem() : Uni.createFrom().failure(new IllegalStateException("removeAll"));
+            }
+        });
+        simulator(repository, disabledJournal(), disabledLeases());
+        repository.putAll(List.of(moving("mission1"), dropped("mission2"))).await().indefinitely();
+
+        tickHandler.accept(List.of("mission1", "mission2"));
+
+        await(() -> scheduled.size() == 2);
+        // the stored location is sent, the dropped mission is dropped again on the next tick
+        assertThat(sent, equalTo(List.of("mission1:MOVING")));
+        assertThat(repository.get("mission1").await().indefinitely().getStatus(), equalTo(ResponderLocation.Status.MOVING));
+        assertThat(scheduled, equalTo(Set.of("mission1", "mission2")));
+    }
+
+    @Test
+    void testLocationUpdatesAreSentOnceWritten() throws Exception {
+        ResponderLocationRepository repository = repository(new ResponderLocationRepository());
+        simulator(repository, disabledJournal(), disabledLeases());
+        repository.putAll(List.of(moving("mission1"), dropped("mission2"))).await().indefinitely();
+
+        tickHandler.accept(List.of("mission1", "mission2", "missing"));
+
+        await(() -> sent.size() == 2);
+        assertThat(Set.copyOf(sent), equalTo(Set.of("mission1:MOVING", "mission2:DROPPED")));
+        assertThat(repository.get("mission2").await().indefinitely(), equalTo(null));
+        assertThat(scheduled, equalTo(Set.of("mission1")));
+    }
+
+    @Test
+    void testReplayResumesTheStoredMissions() throws Exception {
+        // stands in for an Infinispan server shared by the instances
+        StateBackend shared = new OffHeapStateBackend(4096, 1048576, new SimpleMeterRegistry()) {
+            @Override
+            public boolean isDurable() {
+                return true;
+            }
+        };
+        ResponderLocationRepository repository = repository(new ResponderLocationRepository(), shared);
+        MissionJournal previous = journal();
+        previous.putAll(List.of(waiting("mission1"), moving("mission2"), moving("mission3")));
+        destroy(previous);
+        // mission1 was picked up and mission2 ended through other instances while this one was stopped
+        ResponderLocation pickedUp = waiting("mission1");
+        pickedUp.continueMoving(ResponderLocation.Status.PICKEDUP);
+        repository.putAll(List.of(pickedUp, moving("mission3"))).await().indefinitely();
+
+        MissionJournal journal = journal();
+        Simulator simulator = simulator(repository, journal, disabledLeases());
+        simulator.onStart(null);
+
+        await(() -> scheduled.size() == 2);
+        assertThat(scheduled, equalTo(Set.of("mission1", "mission3")));
+        assertThat(repository.get("mission1").await().indefinitely().getStatus(), equalTo(ResponderLocation.Status.PICKEDUP));
+        assertThat(repository.get("mission2").await().indefinitely(), equalTo(null));
+        assertThat(journal.replay().keySet(), equalTo(Set.of("mission1", "mission3")));
+        assertThat(journal.replay().get("mission1").getStatus(), equalTo(ResponderLocation.Status.PICKEDUP));
+    }
+
+    @Test
+    void testReplayStoresTheMissionsLostWithTheInstance() throws Exception {
+        ResponderLocationRepository repository = repository(new ResponderLocationRepository());
+        MissionJournal previous = journal();
+        previous.putAll(List.of(waiting("mission1"), moving("mission2")));
+        destroy(previous);
+
+        Simulator simulator = simulator(repository, journal(), disabledLeases());
+        simulator.onStart(null);
+
+        await(() -> scheduled.size() == 1);
+        // a waiting mission continues when it is picked up
+        assertThat(scheduled, equalTo(Set.of("mission2")));
+        assertThat(repository.get("mission1").await().indefinitely().getStatus(), equalTo(ResponderLocation.Status.WAITING));
+        assertThat(repository.get("mission2").await().indefinitely().getStatus(), equalTo(ResponderLocation.Status.PICKEDUP));
+    }
+
+    @Test
+    void testReplayLeavesTheAdoptedMissions() throws Exception {
+        StateBackend shared = new OffHeapStateBackend(4096, 1048576, new SimpleMeterRegistry()) {
+            @Override
+            public boolean isDurable() {
+                return true;
+            }
+        };
+        AtomicLong time = new AtomicLong(1_000_000);
+        ResponderLocationRepository repository = repository(new ResponderLocationRepository(), shared);
+        MissionJournal previous = journal();
+        previous.putAll(List.of(moving("mission1"), moving("mission2"), moving("mission3")));
+        destroy(previous);
+        repository.putAll(List.of(moving("mission1"), moving("mission2"), moving("mission3"))).await().indefinitely();
+        // mission1 was adopted by b after the lease of a expired, then a leased mission2 again before it stopped, and the
+        // lease of mission3 by c expired
+        leases(shared, "a", time).acquire("mission1").await().indefinitely();
+        time.addAndGet(30001);
+        MissionLeases b = leases(shared, "b", time);
+        assertThat(invoke(MissionLeases.class, b, "scan"), equalTo(List.of("mission1")));
+        leases(shared, "c", time).acquire("mission3").await().indefinitely();
+        time.addAndGet(20000);
+        ((CompletableFuture<?>) invoke(MissionLeases.class, b, "renew")).join();
+        leases(shared, "a", time).acquire("mission2").await().indefinitely();
+        time.addAndGet(10001);
+        ResponderLocation adopted = moving("mission1");
+        adopted.continueMoving(ResponderLocation.Status.MOVING);
+        repository.put(adopted).await().indefinitely();
+
+        MissionJournal journal = journal();
+        MissionLeases a = leases(shared, "a", time);
+        Simulator simulator = simulator(repository, journal, a);
+        simulator.onStart(null);
+
+        await(() -> scheduled.size() == 2);
+        assertThat(scheduled, equalTo(Set.of("mission2", "mission3")));
+        assertThat(a.owns("mission1"), equalTo(false));
+        assertThat(a.owns("mission2"), equalTo(true));
+        assertThat(a.owns("mission3"), equalTo(true));
+        // the progress of b is kept, and b still simulates the mission
+        assertThat(repository.get("mission1").await().indefinitely().getStatus(), equalTo(ResponderLocation.Status.MOVING));
+        ((CompletableFuture<?>) invoke(MissionLeases.class, b, "renew")).join();
+        assertThat(b.owns("mission1"), equalTo(true));
+        assertThat(journal.replay().keySet(), equalTo(Set.of("mission2", "mission3")));
+    }
+
+    private Simulator simulator(ResponderLocationRepository repository, MissionJournal journal, MissionLeases leases) {
+        Simulator simulator = new Simulator();
+        simulator.repository = repository;
+        simulator.scheduler = scheduler;
+        simulator.journal = journal;
+        simulator.leases = leases;
+        simulator.registry = new SimpleMeterRegistry();
+        simulator.delay = 10000;
+        simulator.outgoingCapacity = 100;
+        simulator.outgoingOverflow = "drop-oldest";
+        simulator.payloadFormatName = "json";
+        simulator.init();
+        simulator.responderLocationUpdateEvent().subscribe(new Subscriber<>() {
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(Message<byte[]> message) {
+                JsonObject json = new JsonObject(new String(message.getPayload(), StandardCharsets.UTF_8));
+                sent.add(json.getString("missionId") + ":" + json.getString("status"));
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        return simulator;
+    }
+
+    private ResponderLocationRepository repository(ResponderLocationRepository repository) throws Exception {
+        return repository(repository, backend);
+    }
+
+    private ResponderLocationRepository repository(ResponderLocationRepository repository, StateBackend stateBackend) throws Exception {
+        setField(ResponderLocationRepository.class, repository, "cacheName", "responder-simulator");
+        setField(ResponderLocationRepository.class, repository, "encoding", "json");
+        setField(ResponderLocationRepository.class, repository, "stateBackend", stateBackend);
+        setField(ResponderLocationRepository.class, repository, "registry", new SimpleMeterRegistry());
+        init(ResponderLocationRepository.class, repository);
+        return repository;
+    }
+
+    // the journal of the instance, opened again by each call as after a restart
+    private MissionJournal journal() throws Exception {
+        MissionJournal journal = new MissionJournal();
+        setField(MissionJournal.class, journal, "enabled", true);
+        setField(MissionJournal.class, journal, "path", dir.resolve("journal").toString());
+        setField(MissionJournal.class, journal, "size", 65536);
+        setField(MissionJournal.class, journal, "compactionInterval", 60000L);
+        setField(MissionJournal.class, journal, "registry", new SimpleMeterRegistry());
+        init(MissionJournal.class, journal);
+        return journal;
+    }
+
+    private MissionJournal disabledJournal() throws Exception {
+        MissionJournal journal = new MissionJournal();
+        setField(MissionJournal.class, journal, "enabled", false);
+        init(MissionJournal.class, journal);
+        return journal;
+    }
+
+    private MissionLeases disabledLeases() throws Exception {
+        MissionLeases leases = new MissionLeases();
+        setField(MissionLeases.class, leases, "enabled", false);
+        setField(MissionLeases.class, leases, "owner", Optional.empty());
+        init(MissionLeases.class, leases);
+        return leases;
+    }
+
+    // waits for its pick up
+    private static ResponderLocation waiting(String missionId) {
+        return new ResponderLocation(missionId, "responder-" + missionId, "incidentId",
+                List.of(new MissionStep(coordinates("30.001", "-77.0"), true, false), new MissionStep(coordinates("31.0", "-77.0"), false, true)),
+                coordinates("30.001", "-77.0"), true, 1500.0, ResponderLocation.Status.WAITING, true);
+    }
+
+    private MissionLeases leases(StateBackend stateBackend, String owner, AtomicLong time) throws Exception {
+        MissionLeases leases = new MissionLeases();
+        setField(MissionLeases.class, leases, "enabled", true);
+        setField(MissionLeases.class, leases, "owner", Optional.of(owner));
+        setField(MissionLeases.class, leases, "duration", 30000L);
+        setField(MissionLeases.class, leases, "scanInterval", 10000L);
+        setField(MissionLeases.class, leases, "batchSize", 500);
+        setField(MissionLeases.class, leases, "cacheName", "responder-simulator");
+        setField(MissionLeases.class, leases, "stateBackend", stateBackend);
+        setField(MissionLeases.class, leases, "registry", new SimpleMeterRegistry());
+        setField(MissionLeases.class, leases, "clock", (LongSupplier) time::get);
+        init(MissionLeases.class, leases);
+        return leases;
+    }
+
+    // moves towards its destination on the next tick
+    private static ResponderLocation moving(String missionId) {
+        return responderLocation(missionId, new MissionStep(coordinates("30.001", "-77.0"), false, false),
+                new MissionStep(coordinates("31.0", "-77.0"), false, true));
+    }
+
+    // reaches its destination on the next tick
+    private static ResponderLocation dropped(String missionId) {
+        return responderLocation(missionId, new MissionStep(coordinates("30.001", "-77.0"), false, true));
+    }
+
+    private static ResponderLocation responderLocation(String missionId, MissionStep... steps) {
+        return new ResponderLocation(missionId, "responder-" + missionId, "incidentId", List.of(steps), coordinates("30.0", "-77.0"),
+                false, 1500.0, ResponderLocation.Status.PICKEDUP, false);
+    }
+
+    private static Coordinates coordinates(String lat, String lon) {
+        return new Coordinates(new BigDecimal(lat), new BigDecimal(lon));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        // let the callbacks which are still running complete
+        Thread.sleep(50);
+    }
+
+    private static void init(Class<?> type, Object obj) throws Exception {
+        invoke(type, obj, "init");
+    }
+
+    private static void destroy(MissionJournal journal) throws Exception {
+        invoke(MissionJournal.class, journal, "destroy");
+    }
+
+    private static Object invoke(Class<?> type, Object obj, String method) throws Exception {
+        Method declaredMethod = type.getDeclaredMethod(method);
+        declaredMethod.setAccessible(true);
+        return declaredMethod.invoke(obj);
+    }
+
+    private static void setField(Class<?> type, Object obj, String field, Object value) throws Exception {
+        Field privateField = type.getDeclaredField(field);
+        privateField.setAccessible(true);
+        privateField.set(obj, value);
+    }
+}
@@ -0,0 +1,116 @@
+package com.redhat.emergency.response.responder.simulator.cache;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+public class BoundedCacheTest {
+
+    private final AtomicLong clock = new AtomicLong(0);
+
+    @Test
+    void testLeastRecentlyUsedEntryIsEvicted() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2, Duration.ZERO, clock::get);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        assertThat(cache.get("a"), equalTo("1"));
+        cache.put("c", "3");
+
+        assertThat(cache.size(), equalTo(2));
+        assertThat(cache.get("b"), nullValue());
+        assertThat(cache.get("a"), equalTo("1"));
+        assertThat(cache.get("c"), equalTo("3"));
+        assertThat(cache.evictions(), equalTo(1L));
+    }
+
+    @Test
+    void testEntriesExpire() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, Duration.ofSeconds(10), clock::get);
+        cache.put("a", "1");
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        cache.put("b", "2");
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+
+        assertThat(cache.get("a"), nullValue());
+        assertThat(cache.get("b"), equalTo("2"));
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        cache.expire();
+        assertThat(cache.size(), equalTo(0));
+        assertThat(cache.evictions(), equalTo(2L));
+    }
+
+    @Test
+    void testLoadedValueIsIgnoredAfterInvalidation() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, Duration.ZERO, clock::get);
+        long stamp = cache.stamp();
+        cache.invalidate("a");
+
+        assertThat(cache.putIfUnchanged("a", "stale", stamp), equalTo(false));
+        assertThat(cache.get("a"), nullValue());
+        assertThat(cache.putIfUnchanged("a", "1", cache.stamp()), equalTo(true));
+        assertThat(cache.get("a"), equalTo("1"));
+    }
+
+    @Test
+    void testLoadedValueDoesNotReplaceUpdate() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, Duration.ZERO, clock::get);
+        long stamp = cache.stamp();
+        cache.put("a", "updated");
+
+        assertThat(cache.putIfUnchanged("a", "stale", stamp), equalTo(false));
+        assertThat(cache.get("a"), equalTo("updated"));
+    }
+
+    @Test
+    void testLoadedValueIsCachedAfterChangesOfOtherKeys() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, Duration.ZERO, clock::get);
+        long stamp = cache.stamp();
+        cache.invalidate("b");
+        cache.put("c", "3");
+
+        assertThat(cache.putIfUnchanged("a", "1", stamp), equalTo(true));
+        assertThat(cache.get("a"), equalTo("1"));
+    }
+
+    @Test
+    void testLoadedValueIsIgnoredAfterInvalidationOfAllEntries() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, Duration.ZERO, clock::get);
+        long stamp = cache.stamp();
+        cache.invalidateAll();
+
+        assertThat(cache.putIfUnchanged("a", "stale", stamp), equalTo(false));
+        assertThat(cache.get("a"), nullValue());
+    }
+
+    @Test
+    void testLoadedValueIsIgnoredWhenTheChangeOfItsKeyIsForgotten() {
+        BoundedCache<String, String> cache = new BoundedCache<>(2, Duration.ZERO, clock::get);
+        long stamp = cache.stamp();
+        cache.invalidate("a");
+        cache.invalidate("b");
+        cache.invalidate("c");
+
+        assertThat(cache.putIfUnchanged("a", "stale", stamp), equalTo(false));
+        assertThat(cache.putIfUnchanged("a", "1", cache.stamp()), equalTo(true));
+    }
+
+    @Test
+    void testHitsAndMisses() {
+        BoundedCache<String, String> cache = new BoundedCache<>(10, Duration.ZERO, clock::get);
+        cache.get("a");
+        cache.put("a", "1");
+        cache.get("a");
+        cache.get("a");
+        cache.invalidateAll();
+        cache.get("a");
+
+        assertThat(cache.hits(), equalTo(2L));
+        assertThat(cache.misses(), equalTo(2L));
+    }
+}
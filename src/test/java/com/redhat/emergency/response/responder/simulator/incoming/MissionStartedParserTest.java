@@ -0,0 +1,110 @@
+package com.redhat.emergency.response.responder.simulator.incoming;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.IOException;
+
+import com.redhat.emergency.response.responder.simulator.model.Route;
+import org.junit.jupiter.api.Test;
+
+public class MissionStartedParserTest {
+
+    @Test
+    void testParse() throws Exception {
+        String payload = "{" +
+                "    \"id\": \"979a5f16-7421-41dd-bad5-26f405d693fe\"," +
+                "    \"incidentId\": \"incident236\"," +
+                "    \"responderId\": \"responder123\"," +
+                "    \"responderStartLat\": 34.18323," +
+                "    \"responderStartLong\": -77.90999," +
+                "    \"incidentLat\": 34.18408," +
+                "    \"incidentLong\": -77.84856," +
+                "    \"destinationLat\": 34.1706," +
+                "    \"destinationLong\": -77.949," +
+                "    \"responderLocationHistory\": [{\"lat\": 34.1, \"lon\": -77.9, \"timestamp\": 1}]," +
+                "    \"status\": \"CREATED\"," +
+                "    \"steps\": [" +
+                "       {" +
+                "            \"lat\": 34.1827," +
+                "            \"lon\": -77.9106," +
+                "            \"wayPoint\": false," +
+                "            \"destination\": false" +
+                "        }," +
+                "        {" +
+                "            \"lat\": 34.1842," +
+                "            \"lon\": -77.9125," +
+                "            \"wayPoint\": true," +
+                "            \"destination\": false," +
+                "            \"extra\": {\"nested\": [1, 2]}" +
+                "        }," +
+                "        {" +
+                "            \"destination\": true," +
+                "            \"lon\": -77," +
+                "            \"lat\": 34" +
+                "        }" +
+                "    ]" +
+                "}";
+
+        MissionStarted missionStarted = MissionStartedParser.parse(payload);
+        assertThat(missionStarted.getMissionId(), equalTo("979a5f16-7421-41dd-bad5-26f405d693fe"));
+        assertThat(missionStarted.getIncidentId(), equalTo("incident236"));
+        assertThat(missionStarted.getResponderId(), equalTo("responder123"));
+        assertThat(missionStarted.getResponderStart().getLatD(), equalTo(34.18323));
+        assertThat(missionStarted.getResponderStart().getLonD(), equalTo(-77.90999));
+        Route route = missionStarted.getRoute();
+        assertThat(route, notNullValue());
+        assertThat(route.size(), equalTo(3));
+        assertThat(route.lat(0), equalTo(34.1827));
+        assertThat(route.lon(0), equalTo(-77.9106));
+        assertThat(route.isWayPoint(0), is(false));
+        assertThat(route.isDestination(0), is(false));
+        assertThat(route.lat(1), equalTo(34.1842));
+        assertThat(route.lon(1), equalTo(-77.9125));
+        assertThat(route.isWayPoint(1), is(true));
+        assertThat(route.isDestination(1), is(false));
+        assertThat(route.lat(2), equalTo(34.0));
+        assertThat(route.lon(2), equalTo(-77.0));
+        assertThat(route.isWayPoint(2), is(false));
+        assertThat(route.isDestination(2), is(true));
+        assertThat(route.distance(0, 2) > 0, is(true));
+    }
+
+    @Test
+    void testParseNullIncidentId() throws Exception {
+        String payload = "{\"id\": \"mission\", \"incidentId\": null, \"responderId\": \"responder\", \"responderStartLat\": 34.1," +
+                " \"responderStartLong\": -77.9, \"steps\": []}";
+
+        MissionStarted missionStarted = MissionStartedParser.parse(payload);
+        assertThat(missionStarted.getIncidentId(), nullValue());
+        assertThat(missionStarted.getRoute().size(), equalTo(0));
+    }
+
+    @Test
+    void testParseNotJson() {
+        assertFails("test");
+        assertFails("[]");
+        assertFails("{\"id\": \"mission\", \"responderStartLat\": 34.1, \"responderStartLong\": -77.9, \"steps\": [{\"lat\": 34.1,");
+    }
+
+    @Test
+    void testParseMissingFields() {
+        assertFails("{\"id\": \"mission\", \"responderStartLat\": 34.1, \"responderStartLong\": -77.9}");
+        assertFails("{\"id\": \"mission\", \"responderStartLat\": 34.1, \"steps\": []}");
+        assertFails("{\"id\": \"mission\", \"responderStartLat\": 34.1, \"responderStartLong\": -77.9, \"steps\": [{\"lat\": 34.1}]}");
+        assertFails("{\"id\": \"mission\", \"responderStartLat\": \"34.1\", \"responderStartLong\": -77.9, \"steps\": []}");
+    }
+
+    private void assertFails(String payload) {
+        boolean failed = false;
+        try {
+            MissionStartedParser.parse(payload);
+        } catch (IOException e) {
+            failed = true;
+        }
+        assertThat(payload, failed, is(true));
+    }
+}
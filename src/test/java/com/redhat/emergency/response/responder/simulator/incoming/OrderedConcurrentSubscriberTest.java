@@ -0,0 +1,207 @@
+package com.redhat.emergency.response.responder.simulator.incoming;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import com.redhat.emergency.response.responder.simulator.KafkaConsumerRecord;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.reactive.messaging.kafka.IncomingKafkaRecordMetadata;
+import org.eclipse.microprofile.reactive.messaging.Message;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+
+public class OrderedConcurrentSubscriberTest {
+
+    // processing of each message, by payload, completed by the tests
+    private Map<String, CompletableFuture<Void>> processing;
+
+    private OrderedConcurrentSubscriber<String> subscriber;
+
+    private TestSubscription subscription;
+
+    @BeforeEach
+    void init() {
+        processing = new LinkedHashMap<>();
+        subscriber = new OrderedConcurrentSubscriber<>(4, message -> {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            processing.put(message.getPayload(), future);
+            return Uni.createFrom().completionStage(future);
+        });
+        subscription = new TestSubscription();
+        subscriber.onSubscribe(subscription);
+    }
+
+    @Test
+    void testRequestsUpToMaxInFlight() {
+        assertThat(subscription.requested, equalTo(4L));
+    }
+
+    @Test
+    void testSameKeyIsProcessedInOrder() {
+        TestMessage first = message("first", "a", 0, 0);
+        TestMessage second = message("second", "a", 0, 1);
+        subscriber.onNext(first);
+        subscriber.onNext(second);
+        assertThat(processing.keySet(), contains("first"));
+
+        processing.get("first").complete(null);
+        assertThat(processing.keySet(), contains("first", "second"));
+        assertThat(first.acked, is(true));
+        assertThat(second.acked, is(false));
+
+        processing.get("second").complete(null);
+        assertThat(second.acked, is(true));
+        assertThat(subscription.requested, equalTo(6L));
+        assertThat(subscriber.inFlight(), equalTo(0));
+    }
+
+    @Test
+    void testDifferentKeysAreProcessedConcurrentlyAndAckedInOrder() {
+        TestMessage first = message("first", "a", 0, 0);
+        TestMessage second = message("second", "b", 0, 1);
+        TestMessage third = message("third", "c", 0, 2);
+        subscriber.onNext(first);
+        subscriber.onNext(second);
+        subscriber.onNext(third);
+        assertThat(processing.keySet(), contains("first", "second", "third"));
+
+        processing.get("third").complete(null);
+        processing.get("second").complete(null);
+        assertThat(second.acked, is(false));
+        assertThat(third.acked, is(false));
+        assertThat(subscription.requested, equalTo(4L));
+        assertThat(subscriber.inFlight(), equalTo(3));
+
+        processing.get("first").complete(null);
+        assertThat(first.acked, is(true));
+        assertThat(second.acked, is(true));
+        assertThat(third.acked, is(true));
+        assertThat(subscription.requested, equalTo(7L));
+    }
+
+    @Test
+    void testMessagesWithoutKeyAreOrderedPerPartition() {
+        TestMessage first = message("first", null, 0, 0);
+        TestMessage second = message("second", null, 0, 1);
+        TestMessage other = message("other", null, 1, 0);
+        subscriber.onNext(first);
+        subscriber.onNext(second);
+        subscriber.onNext(other);
+        assertThat(processing.keySet(), contains("first", "other"));
+
+        // partitions are acked independently
+        processing.get("other").complete(null);
+        assertThat(other.acked, is(true));
+        assertThat(first.acked, is(false));
+    }
+
+    @Test
+    void testFailedMessageIsNackedInOrder() {
+        TestMessage first = message("first", "a", 0, 0);
+        TestMessage second = message("second", "a", 0, 1);
+        TestMessage third = message("third", "b", 0, 2);
+        subscriber.onNext(first);
+        subscriber.onNext(second);
+        subscriber.onNext(third);
+
+        processing.get("third").complete(null);
+        processing.get("first").completeExceptionally(new IllegalStateException("failed"));
+        assertThat(first.nacked, notNullValue());
+        assertThat(third.acked, is(false));
+
+        // the next message of the key is still processed
+        processing.get("second").complete(null);
+        assertThat(second.acked, is(true));
+        assertThat(third.acked, is(true));
+    }
+
+    @Test
+    void testHandlerFailingSynchronously() {
+        List<String> handled = new ArrayList<>();
+        OrderedConcurrentSubscriber<String> failing = new OrderedConcurrentSubscriber<>(1, message -> {
+            handled.add(message.getPayload());
+            throw new IllegalStateException("failed");
+        });
+        failing.onSubscribe(new TestSubscription());
+        TestMessage first = message("first", "a", 0, 0);
+        TestMessage second = message("second", "a", 0, 1);
+        failing.onNext(first);
+        failing.onNext(second);
+        assertThat(handled, contains("first", "second"));
+        assertThat(first.nacked, notNullValue());
+        assertThat(second.nacked, notNullValue());
+    }
+
+    private static TestMessage message(String payload, String key, int partition, long offset) {
+        return new TestMessage(payload, new IncomingKafkaRecordMetadata<>(new io.vertx.mutiny.kafka.client.consumer.KafkaConsumerRecord<>(
+                new KafkaConsumerRecord<>("topic", partition, offset, key))));
+    }
+
+    private static class TestMessage implements Message<String> {
+
+        private final String payload;
+
+        private final IncomingKafkaRecordMetadata<String, String> metadata;
+
+        private boolean acked = false;
+
+        private Throwable nacked;
+
+        private TestMessage(String payload, IncomingKafkaRecordMetadata<String, String> metadata) {
+            this.payload = payload;
+            this.metadata = metadata;
+        }
+
+        @Override
+        public String getPayload() {
+            return payload;
+        }
+
+        @Override
+        public CompletionStage<Void> ack() {
+            acked = true;
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletionStage<Void> nack(Throwable reason) {
+            nacked = reason;
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <M> Optional<M> getMetadata(Class<? extends M> clazz) {
+            if (clazz.isInstance(metadata)) {
+                return (Optional<M>) Optional.of(metadata);
+            }
+            return Optional.empty();
+        }
+    }
+
+    private static class TestSubscription implements Subscription {
+
+        private long requested;
+
+        @Override
+        public void request(long n) {
+            requested += n;
+        }
+
+        @Override
+        public void cancel() {
+        }
+    }
+}
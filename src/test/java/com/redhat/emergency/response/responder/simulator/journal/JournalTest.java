@@ -0,0 +1,125 @@
+package com.redhat.emergency.response.responder.simulator.journal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class JournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testReplay() throws IOException {
+        Path path = dir.resolve("journal");
+        Journal journal = new Journal(path, 4096);
+        journal.putAll(Map.of("a", value("1"), "b", value("2")));
+        journal.putAll(Map.of("c", value("3")));
+        journal.putAll(Map.of("a", value("10")));
+        journal.removeAll(List.of("b", "unknown"));
+        journal.close();
+
+        Journal reopened = new Journal(path, 4096);
+        assertThat(entries(reopened), equalTo(Map.of("a", "10", "c", "3")));
+        assertThat(List.copyOf(reopened.entries().keySet()), equalTo(List.of("c", "a")));
+        assertThat(reopened.used(), equalTo(journal.used()));
+        assertThat(reopened.live(), equalTo(journal.live()));
+    }
+
+    @Test
+    void testClear() throws IOException {
+        Path path = dir.resolve("journal");
+        Journal journal = new Journal(path, 4096);
+        journal.putAll(Map.of("a", value("1"), "b", value("2")));
+        journal.clear();
+        journal.putAll(Map.of("c", value("3")));
+        journal.close();
+
+        assertThat(entries(new Journal(path, 4096)), equalTo(Map.of("c", "3")));
+    }
+
+    @Test
+    void testCorruptedRecordEndsTheJournal() throws IOException {
+        Path path = dir.resolve("journal");
+        Journal journal = new Journal(path, 4096);
+        journal.putAll(Map.of("a", value("1")));
+        long offset = journal.used();
+        journal.putAll(Map.of("b", value("2")));
+        journal.putAll(Map.of("c", value("3")));
+        journal.close();
+        // flip the last byte of the value of b
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'x'}), offset + Journal.RECORD_HEADER_SIZE + 1 + Integer.BYTES + 1);
+        }
+
+        Journal reopened = new Journal(path, 4096);
+        assertThat(entries(reopened), equalTo(Map.of("a", "1")));
+        // the next writes replace the corrupted records
+        reopened.putAll(Map.of("d", value("4")));
+        reopened.close();
+        assertThat(entries(new Journal(path, 4096)), equalTo(Map.of("a", "1", "d", "4")));
+    }
+
+    @Test
+    void testCompaction() throws IOException {
+        Path path = dir.resolve("journal");
+        Journal journal = new Journal(path, 4096);
+        // each record takes 50 bytes, the journal is compacted when it is full
+        for (int i = 0; i < 1000; i++) {
+            journal.putAll(Map.of("key" + (i % 10), value(String.format("%034d", i))));
+        }
+        assertThat(journal.compactions() > 0, equalTo(true));
+        assertThat(journal.keys(), equalTo(10));
+        long used = journal.used();
+        journal.compact();
+        assertThat(journal.used(), lessThanOrEqualTo(used));
+        assertThat(journal.used(), equalTo(journal.live()));
+        journal.close();
+
+        Map<String, String> entries = entries(new Journal(path, 4096));
+        assertThat(entries.size(), equalTo(10));
+        assertThat(entries.get("key9"), equalTo(String.format("%034d", 999)));
+        assertThat(Files.exists(dir.resolve("journal.compact")), equalTo(false));
+    }
+
+    @Test
+    void testFull() throws IOException {
+        Journal journal = new Journal(dir.resolve("journal"), 256);
+        journal.putAll(Map.of("a", new byte[200]));
+
+        assertThrows(IllegalStateException.class, () -> journal.putAll(Map.of("b", new byte[100])));
+        assertThat(journal.keys(), equalTo(1));
+    }
+
+    @Test
+    void testNotAJournal() throws IOException {
+        Path path = dir.resolve("journal");
+        Files.write(path, value("not a journal"));
+
+        assertThrows(IllegalStateException.class, () -> new Journal(path, 4096));
+    }
+
+    private static Map<String, String> entries(Journal journal) {
+        return journal.entries().entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> new String(e.getValue(), StandardCharsets.UTF_8)));
+    }
+
+    private static byte[] value(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
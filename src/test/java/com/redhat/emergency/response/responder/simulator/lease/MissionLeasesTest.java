@@ -0,0 +1,131 @@
+package com.redhat.emergency.response.responder.simulator.lease;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.redhat.emergency.response.responder.simulator.state.StateBackend;
+import com.redhat.emergency.response.responder.simulator.state.offheap.OffHeapStateBackend;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+public class MissionLeasesTest {
+
+    // the leases of the instances are in the same backend, as with an Infinispan server
+    private final StateBackend backend = new OffHeapStateBackend(4096, 1048576, new SimpleMeterRegistry());
+
+    private final AtomicLong time = new AtomicLong(1_000_000);
+
+    private final MissionLeases a = leases("a");
+
+    private final MissionLeases b = leases("b");
+
+    @Test
+    void testAdoptExpiredLeases() {
+        a.acquireAll(List.of("mission1", "mission2")).await().indefinitely();
+        assertThat(b.scan(), equalTo(List.of()));
+
+        time.addAndGet(30001);
+        assertThat(new HashSet<>(b.scan()), equalTo(Set.of("mission1", "mission2")));
+        assertThat(b.owns("mission1"), equalTo(true));
+        assertThat(a.owns("mission1"), equalTo(true));
+
+        // the renewal of the previous owner fails
+        a.renew().join();
+        assertThat(a.owns("mission1"), equalTo(false));
+        assertThat(a.owns("mission2"), equalTo(false));
+        assertThat(b.scan(), equalTo(List.of()));
+    }
+
+    @Test
+    void testRenewedLeasesAreNotAdopted() {
+        a.acquire("mission1").await().indefinitely();
+        time.addAndGet(20000);
+        a.renew().join();
+        time.addAndGet(20000);
+
+        assertThat(b.scan(), equalTo(List.of()));
+        assertThat(a.owns("mission1"), equalTo(true));
+    }
+
+    @Test
+    void testReleasedLeasesAreNotAdopted() {
+        a.acquireAll(List.of("mission1", "mission2")).await().indefinitely();
+        a.release(List.of("mission1"));
+        time.addAndGet(60000);
+
+        assertThat(b.scan(), equalTo(List.of("mission2")));
+    }
+
+    @Test
+    void testAbandonedLeasesAreAdoptedOnceExpired() {
+        a.acquire("mission1").await().indefinitely();
+        a.abandon(List.of("mission1"));
+        time.addAndGet(20000);
+        a.renew().join();
+        time.addAndGet(20000);
+
+        assertThat(a.scan(), equalTo(List.of("mission1")));
+        assertThat(a.owns("mission1"), equalTo(true));
+    }
+
+    @Test
+    void testLeaseAdoptedOnce() {
+        MissionLeases c = leases("c");
+        a.acquire("mission1").await().indefinitely();
+        time.addAndGet(30001);
+
+        assertThat(b.scan().size() + c.scan().size(), equalTo(1));
+    }
+
+    @Test
+    void testAcquireTakesOverLease() {
+        a.acquire("mission1").await().indefinitely();
+        b.acquire("mission1").await().indefinitely();
+        a.renew().join();
+
+        assertThat(a.owns("mission1"), equalTo(false));
+        assertThat(b.owns("mission1"), equalTo(true));
+    }
+
+    @Test
+    void testReclaimLeasesNotTakenByAnotherInstance() {
+        MissionLeases c = leases("c");
+        c.acquire("mission3").await().indefinitely();
+        time.addAndGet(30001);
+        b.acquire("mission1").await().indefinitely();
+        a.acquire("mission2").await().indefinitely();
+
+        // a restarted with the same owner
+        MissionLeases restarted = leases("a");
+        assertThat(restarted.reclaimAll(List.of("mission1", "mission2", "mission3", "mission4")).await().indefinitely(),
+                equalTo(List.of("mission2", "mission3", "mission4")));
+        assertThat(restarted.owns("mission1"), equalTo(false));
+        assertThat(restarted.owns("mission4"), equalTo(true));
+
+        b.renew().join();
+        c.renew().join();
+        assertThat(b.owns("mission1"), equalTo(true));
+        assertThat(c.owns("mission3"), equalTo(false));
+    }
+
+    private MissionLeases leases(String owner) {
+        MissionLeases leases = new MissionLeases();
+        leases.enabled = true;
+        leases.owner = Optional.of(owner);
+        leases.duration = 30000;
+        leases.scanInterval = 10000;
+        leases.batchSize = 2;
+        leases.cacheName = "responder-simulator";
+        leases.stateBackend = backend;
+        leases.registry = new SimpleMeterRegistry();
+        leases.clock = time::get;
+        leases.init();
+        return leases;
+    }
+}
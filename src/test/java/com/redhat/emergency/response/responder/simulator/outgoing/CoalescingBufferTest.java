@@ -0,0 +1,214 @@
+package com.redhat.emergency.response.responder.simulator.outgoing;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+public class CoalescingBufferTest {
+
+    // values starting with '*' are status changes, which are never replaced
+    private static CoalescingBuffer<String, String> buffer(int capacity, CoalescingBuffer.OverflowPolicy overflowPolicy) {
+        return new CoalescingBuffer<>(capacity, overflowPolicy, (pending, update) -> !pending.startsWith("*"),
+                value -> !value.startsWith("*"));
+    }
+
+    @Test
+    void testDeliversOnDemand() {
+        CoalescingBuffer<String, String> buffer = buffer(10, CoalescingBuffer.OverflowPolicy.DROP_OLDEST);
+        TestSubscriber subscriber = new TestSubscriber();
+        buffer.subscribe(subscriber);
+
+        buffer.offer("a", "a1");
+        buffer.offer("b", "b1");
+        assertThat(subscriber.values, empty());
+
+        subscriber.request(1);
+        assertThat(subscriber.values, contains("a1"));
+        subscriber.request(5);
+        assertThat(subscriber.values, contains("a1", "b1"));
+        buffer.offer("c", "c1");
+        assertThat(subscriber.values, contains("a1", "b1", "c1"));
+        assertThat(buffer.size(), equalTo(0));
+    }
+
+    @Test
+    void testCoalescesUnsentValues() {
+        CoalescingBuffer<String, String> buffer = buffer(10, CoalescingBuffer.OverflowPolicy.DROP_OLDEST);
+        TestSubscriber subscriber = new TestSubscriber();
+        buffer.subscribe(subscriber);
+
+        buffer.offer("a", "a1");
+        buffer.offer("b", "b1");
+        buffer.offer("a", "a2");
+        buffer.offer("a", "a3");
+        assertThat(buffer.size(), equalTo(2));
+        assertThat(buffer.coalesced(), equalTo(2L));
+
+        subscriber.request(10);
+        assertThat(subscriber.values, contains("a3", "b1"));
+
+        // a sent value is not replaced
+        buffer.offer("a", "a4");
+        assertThat(subscriber.values, contains("a3", "b1", "a4"));
+    }
+
+    @Test
+    void testStatusChangesArePreserved() {
+        CoalescingBuffer<String, String> buffer = buffer(10, CoalescingBuffer.OverflowPolicy.DROP_OLDEST);
+        TestSubscriber subscriber = new TestSubscriber();
+        buffer.subscribe(subscriber);
+
+        buffer.offer("a", "a1");
+        buffer.offer("a", "*a2");
+        buffer.offer("a", "a3");
+        buffer.offer("a", "a4");
+        buffer.offer("a", "*a5");
+
+        subscriber.request(10);
+        assertThat(subscriber.values, contains("*a2", "*a5"));
+    }
+
+    @Test
+    void testDropOldest() {
+        CoalescingBuffer<String, String> buffer = buffer(2, CoalescingBuffer.OverflowPolicy.DROP_OLDEST);
+        TestSubscriber subscriber = new TestSubscriber();
+        buffer.subscribe(subscriber);
+
+        buffer.offer("a", "a1");
+        buffer.offer("b", "b1");
+        buffer.offer("c", "c1");
+        // a was dropped, a new value for a is queued again
+        buffer.offer("a", "a2");
+        assertThat(buffer.dropped(), equalTo(2L));
+
+        subscriber.request(10);
+        assertThat(subscriber.values, contains("c1", "a2"));
+    }
+
+    @Test
+    void testDropNewest() {
+        CoalescingBuffer<String, String> buffer = buffer(2, CoalescingBuffer.OverflowPolicy.DROP_NEWEST);
+        TestSubscriber subscriber = new TestSubscriber();
+        buffer.subscribe(subscriber);
+
+        buffer.offer("a", "a1");
+        buffer.offer("b", "b1");
+        buffer.offer("c", "c1");
+        // coalescing still applies to a full buffer
+        buffer.offer("a", "a2");
+        assertThat(buffer.dropped(), equalTo(1L));
+
+        subscriber.request(10);
+        assertThat(subscriber.values, contains("a2", "b1"));
+    }
+
+    @Test
+    void testOverflowPreservesStatusChanges() {
+        for (CoalescingBuffer.OverflowPolicy overflowPolicy : CoalescingBuffer.OverflowPolicy.values()) {
+            CoalescingBuffer<String, String> buffer = buffer(2, overflowPolicy);
+            TestSubscriber subscriber = new TestSubscriber();
+            buffer.subscribe(subscriber);
+
+            buffer.offer("a", "*a1");
+            buffer.offer("b", "b1");
+            // the status change evicts the moving value
+            buffer.offer("c", "*c1");
+            // only status changes are queued, the moving value is dropped and the status change is queued over capacity
+            buffer.offer("d", "d1");
+            buffer.offer("e", "*e1");
+            assertThat(overflowPolicy.name(), buffer.size(), equalTo(3));
+            assertThat(overflowPolicy.name(), buffer.dropped(), equalTo(2L));
+
+            subscriber.request(10);
+            assertThat(overflowPolicy.name(), subscriber.values, contains("*a1", "*c1", "*e1"));
+        }
+    }
+
+    @Test
+    void testDropOldestSkipsStatusChanges() {
+        CoalescingBuffer<String, String> buffer = buffer(2, CoalescingBuffer.OverflowPolicy.DROP_OLDEST);
+        TestSubscriber subscriber = new TestSubscriber();
+        buffer.subscribe(subscriber);
+
+        buffer.offer("a", "*a1");
+        buffer.offer("b", "b1");
+        buffer.offer("c", "c1");
+        assertThat(buffer.dropped(), equalTo(1L));
+
+        subscriber.request(10);
+        assertThat(subscriber.values, contains("*a1", "c1"));
+    }
+
+    @Test
+    void testSingleSubscriber() {
+        CoalescingBuffer<String, String> buffer = buffer(2, CoalescingBuffer.OverflowPolicy.DROP_NEWEST);
+        buffer.subscribe(new TestSubscriber());
+        TestSubscriber subscriber = new TestSubscriber();
+        buffer.subscribe(subscriber);
+        assertThat(subscriber.error, notNullValue());
+        assertThat(subscriber.error instanceof IllegalStateException, is(true));
+    }
+
+    @Test
+    void testResubscriptionAfterCancel() {
+        CoalescingBuffer<String, String> buffer = buffer(10, CoalescingBuffer.OverflowPolicy.DROP_OLDEST);
+        TestSubscriber first = new TestSubscriber();
+        buffer.subscribe(first);
+        buffer.offer("a", "a1");
+        first.request(1);
+        first.subscription.cancel();
+        buffer.offer("b", "b1");
+        buffer.offer("c", "c1");
+        assertThat(first.values, contains("a1"));
+
+        TestSubscriber second = new TestSubscriber();
+        buffer.subscribe(second);
+        assertThat(second.error, nullValue());
+        second.request(10);
+        assertThat(second.values, contains("b1", "c1"));
+        assertThat(first.values, contains("a1"));
+    }
+
+    private static class TestSubscriber implements Subscriber<String> {
+
+        private final List<String> values = new ArrayList<>();
+
+        private Subscription subscription;
+
+        private Throwable error;
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            this.subscription = s;
+        }
+
+        @Override
+        public void onNext(String value) {
+            values.add(value);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        void request(long n) {
+            subscription.request(n);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.redhat.emergency.response.responder.simulator.outgoing;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import com.redhat.emergency.response.responder.simulator.model.Coordinates;
+import com.redhat.emergency.response.responder.simulator.model.ResponderLocation;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+public class ResponderLocationUpdateEventTest {
+
+    @Test
+    void testPayloadIsCompatibleWithJsonObject() {
+        assertCompatible("responderId", "missionId", "incidentId", 34.1901, -77.9188, false, ResponderLocation.Status.MOVING);
+        assertCompatible("responderId", "missionId", "incidentId", 34.0, -77.0, true, ResponderLocation.Status.PICKEDUP);
+        assertCompatible("responderId", "missionId", null, -0.5, 0.001, false, ResponderLocation.Status.DROPPED);
+        assertCompatible("responderId", "missionId", "incidentId", 0.0, -0.0009, true, ResponderLocation.Status.WAITING);
+        assertCompatible("responderId", "missionId", "incidentId", 0.000001, -179.999999, false, ResponderLocation.Status.CREATED);
+        assertCompatible("979a5f16-7421-41dd-bad5-26f405d693fe", "a\"b\\c/d", "tab\tnew\nline\r\b\f\u0001\u001f\u007f",
+                89.123456, 100.1, false, ResponderLocation.Status.MOVING);
+        assertCompatible("r\u00e9pondeur", "\u30df\u30c3\u30b7\u30e7\u30f3", "\ud83d\ude91 \"\u00e9\"\n", 12.34, -56.78, true, ResponderLocation.Status.MOVING);
+    }
+
+    @Test
+    void testWriterIsReused() {
+        byte[] first = ResponderLocationUpdateEvent.payload(responderLocation("a-much-longer-responder-id-than-the-next-one", "m", "i",
+                1.5, 2.5, false, ResponderLocation.Status.MOVING));
+        byte[] second = ResponderLocationUpdateEvent.payload(responderLocation("r", "m", "i", 1.5, 2.5, false, ResponderLocation.Status.MOVING));
+        assertThat(new String(second, StandardCharsets.UTF_8), equalTo(expected(responderLocation("r", "m", "i", 1.5, 2.5, false,
+                ResponderLocation.Status.MOVING))));
+        assertThat(first.length > second.length, equalTo(true));
+    }
+
+    @Test
+    void testProtobufPayload() {
+        byte[] payload = ResponderLocationUpdateEvent.payload(responderLocation("r1", "m1", "i1", 34.1901, -77.9188, true,
+                ResponderLocation.Status.MOVING), PayloadFormat.PROTOBUF);
+        assertThat(payload, equalTo(bytes(
+                0x0A, 0x02, 'r', '1',
+                0x12, 0x02, 'm', '1',
+                0x1A, 0x02, 'i', '1',
+                0x20, 0x01,
+                // zigzag encoded 34190100 and -77918800
+                0x28, 0xA8, 0xCC, 0xCD, 0x20,
+                0x30, 0x9F, 0xC9, 0xA7, 0x4A,
+                0x38, 0x01,
+                0x40, 0x01)));
+    }
+
+    @Test
+    void testProtobufPayloadOmitsDefaultValues() {
+        // null incident id, CREATED status, 0 latitude and false booleans are not written, the UTF-8 length is in bytes
+        byte[] payload = ResponderLocationUpdateEvent.payload(responderLocation("r1", "\u00e9", null, 0.0, -0.000001, false,
+                ResponderLocation.Status.CREATED), PayloadFormat.PROTOBUF);
+        assertThat(payload, equalTo(bytes(
+                0x0A, 0x02, 'r', '1',
+                0x12, 0x02, 0xC3, 0xA9,
+                0x30, 0x01)));
+    }
+
+    private static byte[] bytes(int... values) {
+        byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private void assertCompatible(String responderId, String missionId, String incidentId, double lat, double lon, boolean person,
+                                  ResponderLocation.Status status) {
+        ResponderLocation responderLocation = responderLocation(responderId, missionId, incidentId, lat, lon, person, status);
+        byte[] payload = ResponderLocationUpdateEvent.payload(responderLocation);
+        assertThat(new String(payload, StandardCharsets.UTF_8), equalTo(expected(responderLocation)));
+        assertThat(payload, equalTo(expected(responderLocation).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // the payload as it was built before the direct writer
+    private String expected(ResponderLocation rl) {
+        return new JsonObject().put("responderId", rl.getResponderId())
+                .put("missionId", rl.getMissionId())
+                .put("incidentId", rl.getIncidentId())
+                .put("status", rl.getStatus().name())
+                .put("lat", rl.getCurrentPosition().getLatD())
+                .put("lon", rl.getCurrentPosition().getLonD())
+                .put("human", rl.isPerson())
+                .put("continue", rl.getStatus().equals(ResponderLocation.Status.MOVING)
+                        || rl.getStatus().equals(ResponderLocation.Status.PICKEDUP))
+                .encode();
+    }
+
+    private ResponderLocation responderLocation(String responderId, String missionId, String incidentId, double lat, double lon,
+                                                boolean person, ResponderLocation.Status status) {
+        return new ResponderLocation(missionId, responderId, incidentId, Collections.emptyList(), Coordinates.of(lat, lon), person,
+                1500.0, status, false);
+    }
+}
@@ -0,0 +1,53 @@
+package com.redhat.emergency.response.responder.simulator.state.hotrod;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class OwnWritesTest {
+
+    @Test
+    void testEachWriteSkipsOneEvent() {
+        OwnWrites<String> ownWrites = new OwnWrites<>();
+        ownWrites.written(List.of("a", "b"));
+        ownWrites.written(List.of("a"));
+
+        assertThat(ownWrites.received("a"), equalTo(true));
+        assertThat(ownWrites.received("a"), equalTo(true));
+        assertThat(ownWrites.received("a"), equalTo(false));
+        assertThat(ownWrites.received("b"), equalTo(true));
+        assertThat(ownWrites.received("c"), equalTo(false));
+        assertThat(ownWrites.size(), equalTo(0));
+    }
+
+    @Test
+    void testByteArrayKeysAreComparedByContent() {
+        OwnWrites<byte[]> ownWrites = new OwnWrites<>();
+        ownWrites.written(List.of("a".getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(ownWrites.received("a".getBytes(StandardCharsets.UTF_8)), equalTo(true));
+    }
+
+    @Test
+    void testEventsOfFailedWritesAreNotSkipped() {
+        OwnWrites<String> ownWrites = new OwnWrites<>();
+        ownWrites.written(List.of("a", "b"));
+        ownWrites.notWritten(List.of("a"));
+
+        assertThat(ownWrites.received("a"), equalTo(false));
+        assertThat(ownWrites.received("b"), equalTo(true));
+    }
+
+    @Test
+    void testEventsAreNotSkippedAfterFailover() {
+        OwnWrites<String> ownWrites = new OwnWrites<>();
+        ownWrites.written(List.of("a"));
+        ownWrites.clear();
+
+        assertThat(ownWrites.received("a"), equalTo(false));
+    }
+}
@@ -0,0 +1,100 @@
+package com.redhat.emergency.response.responder.simulator.state.offheap;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.redhat.emergency.response.responder.simulator.state.StateCache;
+import com.redhat.emergency.response.responder.simulator.state.StateCodec;
+import com.redhat.emergency.response.responder.simulator.state.StateIterator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+public class OffHeapStateBackendTest {
+
+    private final OffHeapStateBackend backend = new OffHeapStateBackend(1024, 4096, new SimpleMeterRegistry());
+
+    private final StateCache<String, String> cache = backend.cache("test", StateCodec.STRING, StateCodec.STRING);
+
+    @Test
+    void testPutGetRemove() {
+        cache.putAsync("key1", "value1").join();
+        cache.putAll(Map.of("key2", "value2", "key3", "value3"));
+        cache.putAsync("key1", "updated").join();
+
+        assertThat(cache.get("key1"), equalTo("updated"));
+        assertThat(cache.getAsync("key2").join(), equalTo("value2"));
+        assertThat(cache.getAll(Set.of("key1", "key3", "missing")), equalTo(Map.of("key1", "updated", "key3", "value3")));
+        assertThat(cache.size(), equalTo(3));
+
+        cache.removeAsync("key2").join();
+        assertThat(cache.get("key2"), nullValue());
+        cache.clearAsync().join();
+        assertThat(cache.size(), equalTo(0));
+        assertThat(cache.get("key1"), nullValue());
+    }
+
+    @Test
+    void testReplace() {
+        cache.putAsync("key", "value1").join();
+
+        assertThat(cache.replaceAsync("key", "other", "value2").join(), equalTo(false));
+        assertThat(cache.replaceAsync("missing", "value1", "value2").join(), equalTo(false));
+        assertThat(cache.replaceAsync("key", "value1", "value2").join(), equalTo(true));
+        assertThat(cache.get("key"), equalTo("value2"));
+        assertThat(cache.get("missing"), nullValue());
+    }
+
+    @Test
+    void testSameCacheForSameName() {
+        cache.putAsync("key", "value").join();
+        StateCache<String, String> same = backend.cache("test", StateCodec.STRING, StateCodec.STRING);
+        StateCache<String, String> other = backend.cache("other", StateCodec.STRING, StateCodec.STRING);
+
+        assertThat(same.get("key"), equalTo("value"));
+        assertThat(other.get("key"), nullValue());
+    }
+
+    @Test
+    void testFreedChunksAreReused() {
+        // each value takes a whole slab, and an overwrite allocates the new chunk before freeing the previous one
+        String large = "x".repeat(1000);
+        for (int i = 0; i < 100; i++) {
+            cache.putAsync("key" + (i % 3), large + i).join();
+        }
+        assertThat(cache.get("key0"), equalTo(large + 99));
+        cache.putAsync("key3", large).join();
+        assertThat(cache.putAsync("key4", large).isCompletedExceptionally(), equalTo(true));
+        assertThat(cache.get("key4"), nullValue());
+
+        cache.removeAsync("key0").join();
+        cache.putAsync("key4", large).join();
+        assertThat(cache.get("key4"), equalTo(large));
+    }
+
+    @Test
+    void testValuesLargerThanSlabAreRejected() {
+        assertThat(cache.putAsync("key", "x".repeat(1024)).isCompletedExceptionally(), equalTo(true));
+    }
+
+    @Test
+    void testEntries() {
+        Map<String, String> entries = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            entries.put("key" + i, "value" + i);
+        }
+        cache.putAll(entries);
+
+        Map<String, String> iterated = new HashMap<>();
+        try (StateIterator<String, String> iterator = cache.entries(3)) {
+            cache.removeAsync("key5").join();
+            iterator.forEachRemaining(entry -> iterated.put(entry.getKey(), entry.getValue()));
+        }
+        entries.remove("key5");
+        assertThat(iterated, equalTo(entries));
+    }
+}
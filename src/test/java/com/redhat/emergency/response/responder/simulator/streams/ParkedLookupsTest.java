@@ -0,0 +1,57 @@
+package com.redhat.emergency.response.responder.simulator.streams;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import org.junit.jupiter.api.Test;
+
+public class ParkedLookupsTest {
+
+    private final ParkedLookups<String> parked = new ParkedLookups<>();
+
+    @Test
+    void testLookupsOfSameKeyAreResumedTogether() {
+        ParkedLookups.Parked<String> first = parked.park("responder1");
+        ParkedLookups.Parked<String> second = parked.park("responder1");
+        ParkedLookups.Parked<String> other = parked.park("responder2");
+        assertThat(parked.size(), equalTo(3));
+        assertThat(parked.isParked("responder1"), equalTo(true));
+
+        parked.resume("responder1", "value");
+        assertThat(first.future().getNow(null), equalTo("value"));
+        assertThat(second.future().getNow(null), equalTo("value"));
+        assertThat(other.future().isDone(), equalTo(false));
+
+        assertThat(parked.isParked("responder1"), equalTo(false));
+        parked.release("responder1", first);
+        parked.release("responder1", second);
+        assertThat(parked.size(), equalTo(1));
+    }
+
+    @Test
+    void testReleasedLookupsAreNotResumed() {
+        ParkedLookups.Parked<String> first = parked.park("responder1");
+        ParkedLookups.Parked<String> second = parked.park("responder1");
+        parked.release("responder1", first);
+        parked.resume("responder1", "value");
+        assertThat(second.future().getNow(null), equalTo("value"));
+        parked.release("responder1", second);
+
+        ParkedLookups.Parked<String> timedOut = parked.park("responder1");
+        parked.release("responder1", timedOut);
+        ParkedLookups.Parked<String> next = parked.park("responder1");
+        assertThat(next == timedOut, equalTo(false));
+        assertThat(parked.size(), equalTo(1));
+    }
+
+    @Test
+    void testReleaseAfterResumeDoesNotRemoveNewLookups() {
+        ParkedLookups.Parked<String> resumed = parked.park("responder1");
+        parked.resume("responder1", "value");
+        ParkedLookups.Parked<String> next = parked.park("responder1");
+        parked.release("responder1", resumed);
+
+        parked.resume("responder1", "other");
+        assertThat(next.future().getNow(null), equalTo("other"));
+    }
+}
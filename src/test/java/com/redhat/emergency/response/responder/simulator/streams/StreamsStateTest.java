@@ -0,0 +1,61 @@
+package com.redhat.emergency.response.responder.simulator.streams;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.junit.jupiter.api.Test;
+
+public class StreamsStateTest {
+
+    private final StreamsState streamsState = new StreamsState();
+
+    @Test
+    void testRunningCompletesWhenStreamsIsRunning() {
+        CompletableFuture<Void> running = streamsState.running().toCompletableFuture();
+        streamsState.onChange(KafkaStreams.State.REBALANCING, KafkaStreams.State.CREATED);
+        assertThat(running.isDone(), equalTo(false));
+
+        streamsState.onChange(KafkaStreams.State.RUNNING, KafkaStreams.State.REBALANCING);
+        assertThat(running.isDone(), equalTo(true));
+        assertThat(streamsState.running().toCompletableFuture().isDone(), equalTo(true));
+        assertThat(streamsState.state(), equalTo(KafkaStreams.State.RUNNING));
+    }
+
+    @Test
+    void testRebalanceWaitsForRunningAgain() {
+        streamsState.onChange(KafkaStreams.State.REBALANCING, KafkaStreams.State.CREATED);
+        streamsState.onChange(KafkaStreams.State.RUNNING, KafkaStreams.State.REBALANCING);
+        streamsState.onChange(KafkaStreams.State.REBALANCING, KafkaStreams.State.RUNNING);
+
+        CompletableFuture<Void> running = streamsState.running().toCompletableFuture();
+        assertThat(running.isDone(), equalTo(false));
+        streamsState.onChange(KafkaStreams.State.RUNNING, KafkaStreams.State.REBALANCING);
+        assertThat(running.isDone(), equalTo(true));
+    }
+
+    @Test
+    void testRunningFailsWhenStreamsStops() throws InterruptedException {
+        CompletableFuture<Void> pending = streamsState.running().toCompletableFuture();
+        streamsState.onChange(KafkaStreams.State.REBALANCING, KafkaStreams.State.CREATED);
+        streamsState.onChange(KafkaStreams.State.ERROR, KafkaStreams.State.REBALANCING);
+
+        assertFailed(pending);
+        assertFailed(streamsState.running().toCompletableFuture());
+        assertThat(streamsState.state(), equalTo(KafkaStreams.State.ERROR));
+    }
+
+    private void assertFailed(CompletableFuture<Void> future) throws InterruptedException {
+        assertThat(future.isCompletedExceptionally(), equalTo(true));
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(InvalidStateStoreException.class));
+        }
+    }
+}
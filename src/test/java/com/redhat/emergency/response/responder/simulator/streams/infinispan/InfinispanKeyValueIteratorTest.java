@@ -0,0 +1,86 @@
+package com.redhat.emergency.response.responder.simulator.streams.infinispan;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KeyValue;
+import org.junit.jupiter.api.Test;
+
+public class InfinispanKeyValueIteratorTest {
+
+    private final List<Map.Entry<byte[], byte[]>> stored = new ArrayList<>();
+
+    private final Map<Bytes, byte[]> pending = new LinkedHashMap<>();
+
+    @Test
+    void testPendingWritesReplaceRemoteEntries() {
+        stored("a", "1");
+        stored("b", "2");
+        stored("c", "3");
+        pending.put(bytes("b"), value("20"));
+        pending.put(bytes("c"), InfinispanKeyValueStore.TOMBSTONE);
+        pending.put(bytes("d"), value("4"));
+
+        InfinispanKeyValueIterator iterator = new InfinispanKeyValueIterator(stored.iterator(), () -> {}, pending, key -> true);
+
+        assertThat(entries(iterator), equalTo(Map.of("a", "1", "b", "20", "d", "4")));
+    }
+
+    @Test
+    void testRangeFilter() {
+        stored("a", "1");
+        stored("b", "2");
+        stored("c", "3");
+        pending.put(bytes("bb"), value("22"));
+        pending.put(bytes("d"), value("4"));
+
+        InfinispanKeyValueIterator iterator = new InfinispanKeyValueIterator(stored.iterator(), () -> {}, pending,
+                key -> key.compareTo(bytes("b")) >= 0 && key.compareTo(bytes("c")) <= 0);
+
+        assertThat(iterator.peekNextKey(), equalTo(bytes("b")));
+        assertThat(entries(iterator), equalTo(Map.of("b", "2", "bb", "22", "c", "3")));
+    }
+
+    @Test
+    void testCloseClosesRemoteIterator() {
+        AtomicBoolean closed = new AtomicBoolean(false);
+        InfinispanKeyValueIterator iterator = new InfinispanKeyValueIterator(stored.iterator(), () -> closed.set(true), pending,
+                key -> true);
+
+        assertThat(iterator.hasNext(), equalTo(false));
+        iterator.close();
+        assertThat(closed.get(), equalTo(true));
+    }
+
+    private Map<String, String> entries(InfinispanKeyValueIterator iterator) {
+        Map<String, String> entries = new HashMap<>();
+        while (iterator.hasNext()) {
+            KeyValue<Bytes, byte[]> next = iterator.next();
+            entries.put(new String(next.key.get(), StandardCharsets.UTF_8), new String(next.value, StandardCharsets.UTF_8));
+        }
+        iterator.close();
+        return entries;
+    }
+
+    private void stored(String key, String value) {
+        stored.add(new AbstractMap.SimpleEntry<>(key.getBytes(StandardCharsets.UTF_8), value(value)));
+    }
+
+    private static Bytes bytes(String key) {
+        return Bytes.wrap(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] value(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
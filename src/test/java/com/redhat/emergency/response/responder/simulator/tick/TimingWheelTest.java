@@ -0,0 +1,88 @@
+package com.redhat.emergency.response.responder.simulator.tick;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+public class TimingWheelTest {
+
+    private final AtomicLong clock = new AtomicLong(1000);
+
+    @Test
+    void testTimeoutFiresAfterDeadline() {
+        TimingWheel wheel = new TimingWheel(100, 8, clock::get);
+        wheel.schedule("mission1", 250);
+
+        assertThat(advance(wheel, 200), is(empty()));
+        assertThat(wheel.size(), equalTo(1));
+        assertThat(advance(wheel, 100), contains("mission1"));
+        assertThat(wheel.size(), equalTo(0));
+        assertThat(advance(wheel, 1000), is(empty()));
+    }
+
+    @Test
+    void testTimeoutsFireInBatch() {
+        TimingWheel wheel = new TimingWheel(100, 8, clock::get);
+        wheel.schedule("mission1", 100);
+        wheel.schedule("mission2", 150);
+        wheel.schedule("mission3", 500);
+
+        assertThat(advance(wheel, 200), contains("mission1", "mission2"));
+        assertThat(advance(wheel, 300), contains("mission3"));
+    }
+
+    @Test
+    void testTimeoutBeyondOneRevolution() {
+        TimingWheel wheel = new TimingWheel(100, 4, clock::get);
+        wheel.schedule("mission1", 1000);
+
+        assertThat(advance(wheel, 900), is(empty()));
+        assertThat(advance(wheel, 100), contains("mission1"));
+    }
+
+    @Test
+    void testCancel() {
+        TimingWheel wheel = new TimingWheel(100, 8, clock::get);
+        wheel.schedule("mission1", 100);
+        wheel.schedule("mission2", 100);
+
+        assertThat(wheel.cancel("mission1"), is(true));
+        assertThat(wheel.cancel("mission3"), is(false));
+        assertThat(wheel.size(), equalTo(1));
+        assertThat(advance(wheel, 100), contains("mission2"));
+    }
+
+    @Test
+    void testClear() {
+        TimingWheel wheel = new TimingWheel(100, 8, clock::get);
+        wheel.schedule("mission1", 100);
+        wheel.schedule("mission2", 200);
+
+        wheel.clear();
+        assertThat(wheel.size(), equalTo(0));
+        assertThat(advance(wheel, 1000), is(empty()));
+    }
+
+    @Test
+    void testRescheduleReplacesDeadline() {
+        TimingWheel wheel = new TimingWheel(100, 8, clock::get);
+        wheel.schedule("mission1", 100);
+        wheel.schedule("mission1", 300);
+
+        assertThat(wheel.size(), equalTo(1));
+        assertThat(advance(wheel, 200), is(empty()));
+        assertThat(advance(wheel, 100), contains("mission1"));
+    }
+
+    private List<String> advance(TimingWheel wheel, long millis) {
+        return wheel.advance(clock.addAndGet(millis)).stream().map(TimingWheel.Timeout::key).collect(Collectors.toList());
+    }
+}